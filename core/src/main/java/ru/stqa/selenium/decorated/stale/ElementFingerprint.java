@@ -0,0 +1,126 @@
+/*
+ * Copyright 2016 Alexei Barantsev
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.stqa.selenium.decorated.stale;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.SearchContext;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+
+import java.util.List;
+
+/**
+ * Cheap identity of an element: tag name, id, name, type and class attributes and a hash of the text,
+ * computed in the browser by a single script call. The identity can be taken by the same script
+ * that finds the element.
+ */
+final class ElementFingerprint {
+
+  private static final String IDENTITY =
+    "function identity(e) {" +
+    "  var t = (e.textContent || '').replace(/\\s+/g, ' ').trim();" +
+    "  var h = 0;" +
+    "  for (var i = 0; i < t.length; i++) { h = (h * 31 + t.charCodeAt(i)) | 0; }" +
+    "  return [e.tagName.toLowerCase(), e.id, e.getAttribute('name'), e.getAttribute('type')," +
+    "   e.getAttribute('class'), h].join('|');" +
+    "}";
+
+  private static final String SCRIPT = IDENTITY + "return identity(arguments[0]);";
+
+  /**
+   * Takes a root element (or null for the document), the strategy and the expression, returns the first
+   * matching element and its identity, or null if there is no such element.
+   */
+  private static final String FIND_SCRIPT = IDENTITY +
+    "var root = arguments[0] || document;" +
+    "var e = arguments[1] === 'css' ? root.querySelector(arguments[2])" +
+    " : document.evaluate(arguments[2], root, null, XPathResult.FIRST_ORDERED_NODE_TYPE, null).singleNodeValue;" +
+    "return e && e.nodeType === 1 ? [e, identity(e)] : null;";
+
+  /**
+   * An element together with its fingerprint.
+   */
+  static final class Found {
+    final WebElement element;
+    final String fingerprint;
+
+    Found(WebElement element, String fingerprint) {
+      this.element = element;
+      this.fingerprint = fingerprint;
+    }
+  }
+
+  private ElementFingerprint() {}
+
+  static String of(WebDriver driver, WebElement element) {
+    if (!(driver instanceof JavascriptExecutor)) {
+      return null;
+    }
+    Object fingerprint = ((JavascriptExecutor) driver).executeScript(SCRIPT, element);
+    return fingerprint instanceof String ? (String) fingerprint : null;
+  }
+
+  /**
+   * Finds an element in the context and takes its fingerprint by a single script call. Returns null
+   * if the element is not found, or if the driver can not execute scripts, or the locator can not be
+   * translated to a CSS selector or an XPath expression, like link text locators.
+   */
+  static Found find(WebDriver driver, SearchContext context, By locator) {
+    if (!(driver instanceof JavascriptExecutor)) {
+      return null;
+    }
+    String[] query = queryOf(locator);
+    if (query == null) {
+      return null;
+    }
+    Object root = context instanceof WebElement ? context : null;
+    Object result = ((JavascriptExecutor) driver).executeScript(FIND_SCRIPT, root, query[0], query[1]);
+    if (!(result instanceof List) || ((List<?>) result).size() != 2
+      || !(((List<?>) result).get(0) instanceof WebElement)) {
+      return null;
+    }
+    List<?> found = (List<?>) result;
+    return new Found((WebElement) found.get(0), found.get(1) instanceof String ? (String) found.get(1) : null);
+  }
+
+  private static String[] queryOf(By locator) {
+    // By subclasses keep their values private, but all of them print as "By.strategy: value"
+    String description = locator.toString();
+    String value = description.substring(description.indexOf(": ") + 2);
+    if (locator instanceof By.ByCssSelector || locator instanceof By.ByTagName) {
+      return new String[] {"css", value};
+    }
+    if (locator instanceof By.ByXPath) {
+      return new String[] {"xpath", value};
+    }
+    if (locator instanceof By.ById) {
+      return new String[] {"css", "[id=" + quote(value) + "]"};
+    }
+    if (locator instanceof By.ByName) {
+      return new String[] {"css", "[name=" + quote(value) + "]"};
+    }
+    if (locator instanceof By.ByClassName) {
+      return new String[] {"css", "[class~=" + quote(value) + "]"};
+    }
+    return null;
+  }
+
+  private static String quote(String value) {
+    return "\"" + value.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+  }
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright 2016 Alexei Barantsev
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.stqa.selenium.decorated.stale;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.SearchContext;
+import org.openqa.selenium.StaleElementReferenceException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.WrapsElement;
+
+import java.lang.ref.WeakReference;
+import java.util.function.BiFunction;
+
+/**
+ * Describes how an element was found: the locator and the path of the search context it was found in.
+ * The parent element itself is referenced weakly, so holding a path does not prevent wrappers from being
+ * garbage collected. If the parent is gone or stale, it is rediscovered by its own path, the parent wrapper
+ * is left as it is and rediscovers its element when it is used.
+ */
+public final class LocatorPath {
+
+  private final LocatorPath parent;
+  private final WeakReference<SearchContext> context;
+  private final By locator;
+  private final String fingerprint;
+
+  private LocatorPath(LocatorPath parent, WeakReference<SearchContext> context, By locator, String fingerprint) {
+    this.parent = parent;
+    this.context = context;
+    this.locator = locator;
+    this.fingerprint = fingerprint;
+  }
+
+  public static LocatorPath inDriver(By locator) {
+    return new LocatorPath(null, null, locator, null);
+  }
+
+  public static LocatorPath inElement(LocatorPath parent, StaleTolerantWebElement context, By locator) {
+    return new LocatorPath(parent, new WeakReference<>(context), locator, null);
+  }
+
+  /**
+   * Path of an element found in an arbitrary search context, like an element proxy. If the context
+   * is gone, the element can not be rediscovered.
+   */
+  public static LocatorPath inContext(SearchContext context, By locator) {
+    if (context instanceof StaleTolerantWebElement) {
+      StaleTolerantWebElement parent = (StaleTolerantWebElement) context;
+      return inElement(parent.getLocatorPath(), parent, locator);
+    }
+    if (context == null || context instanceof WebDriver) {
+      return inDriver(locator);
+    }
+    return new LocatorPath(null, new WeakReference<>(context), locator, null);
+  }
+
+  public LocatorPath withFingerprint(String fingerprint) {
+    return new LocatorPath(parent, context, locator, fingerprint);
+  }
+
+  public LocatorPath withLocator(By locator) {
+    return new LocatorPath(parent, context, locator, null);
+  }
+
+  public LocatorPath getParent() {
+    return parent;
+  }
+
+  public By getLocator() {
+    return locator;
+  }
+
+  public String getFingerprint() {
+    return fingerprint;
+  }
+
+  /**
+   * Returns the parent element, null if the element was found in the driver or the parent is gone.
+   */
+  public SearchContext getSearchContext() {
+    SearchContext live = context == null ? null : context.get();
+    return live instanceof StaleTolerantWebElement ? ((StaleTolerantWebElement) live).getActivated() : live;
+  }
+
+  boolean isInDriver() {
+    return context == null;
+  }
+
+  /**
+   * Finds the element again, returns null if the search context can not be restored.
+   */
+  WebElement rediscover(WebDriver driver) {
+    return rediscover(driver, SearchContext::findElement);
+  }
+
+  /**
+   * Finds the element again by the given finder, its parents are found the usual way.
+   */
+  WebElement rediscover(WebDriver driver, BiFunction<SearchContext, By, WebElement> finder) {
+    if (context == null) {
+      return finder.apply(driver, locator);
+    }
+    SearchContext live = context.get();
+    if (live != null) {
+      try {
+        if (live instanceof StaleTolerantWebElement) {
+          return finder.apply(((StaleTolerantWebElement) live).getOriginal(), locator);
+        }
+        return unwrap(finder.apply(live, locator));
+      } catch (StaleElementReferenceException e) {
+        if (parent == null) {
+          throw e;
+        }
+      }
+    }
+    if (parent == null) {
+      return null;
+    }
+    WebElement newContext = parent.rediscover(driver);
+    if (newContext == null) {
+      return null;
+    }
+    return finder.apply(newContext, locator);
+  }
+
+  // elements found in a proxy of a stale tolerant element are wrapped by it
+  private static WebElement unwrap(WebElement element) {
+    return element instanceof Rediscoverable && element instanceof WrapsElement
+      ? ((WrapsElement) element).getWrappedElement() : element;
+  }
+
+  @Override
+  public String toString() {
+    return parent == null ? String.valueOf(locator) : parent + " -> " + locator;
+  }
+}
@@ -20,11 +20,43 @@ import org.openqa.selenium.By;
 import org.openqa.selenium.SearchContext;
 
 public interface Rediscoverable {
-  void setSearchContext(SearchContext searchContext);
+  void setLocatorPath(LocatorPath locatorPath);
 
-  SearchContext getSearchContext();
+  LocatorPath getLocatorPath();
 
-  void setLocator(By locator);
+  /**
+   * @deprecated the search context is a part of the locator path, use {@link #setLocatorPath(LocatorPath)}
+   */
+  @Deprecated
+  default void setSearchContext(SearchContext searchContext) {
+    setLocatorPath(LocatorPath.inContext(searchContext, getLocator()));
+  }
 
-  By getLocator();
+  /**
+   * Returns the parent element the element was found in, null if the parent is gone.
+   * @deprecated the search context is a part of the locator path, use {@link #getLocatorPath()}
+   */
+  @Deprecated
+  default SearchContext getSearchContext() {
+    LocatorPath locatorPath = getLocatorPath();
+    return locatorPath == null ? null : locatorPath.getSearchContext();
+  }
+
+  /**
+   * @deprecated the locator is a part of the locator path, use {@link #setLocatorPath(LocatorPath)}
+   */
+  @Deprecated
+  default void setLocator(By locator) {
+    LocatorPath locatorPath = getLocatorPath();
+    setLocatorPath(locatorPath == null ? LocatorPath.inDriver(locator) : locatorPath.withLocator(locator));
+  }
+
+  /**
+   * @deprecated the locator is a part of the locator path, use {@link #getLocatorPath()}
+   */
+  @Deprecated
+  default By getLocator() {
+    LocatorPath locatorPath = getLocatorPath();
+    return locatorPath == null ? null : locatorPath.getLocator();
+  }
 }
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2016 Alexei Barantsev
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.stqa.selenium.decorated.stale;
+
+import org.openqa.selenium.By;
+import ru.stqa.selenium.decorated.metrics.LatencyHistogram;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts stale element recoveries per locator, so that the page objects that cause most of them can be found.
+ */
+public class StaleRecoveryStatistics {
+
+  private final ConcurrentHashMap<By, LocatorStatistics> statistics = new ConcurrentHashMap<>();
+
+  LocatorStatistics forLocator(By locator) {
+    LocatorStatistics existing = statistics.get(locator);
+    return existing != null ? existing : statistics.computeIfAbsent(locator, key -> new LocatorStatistics());
+  }
+
+  public Map<By, Snapshot> snapshot() {
+    Map<By, Snapshot> result = new LinkedHashMap<>();
+    statistics.forEach((locator, stats) -> result.put(locator, stats.snapshot()));
+    return Collections.unmodifiableMap(result);
+  }
+
+  public void reset() {
+    statistics.clear();
+  }
+
+  static class LocatorStatistics {
+
+    private final LongAdder attempts = new LongAdder();
+    private final LongAdder successes = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder mismatches = new LongAdder();
+    private final LatencyHistogram rediscoveryTime = new LatencyHistogram();
+
+    void recordSuccess(long nanos) {
+      attempts.increment();
+      successes.increment();
+      rediscoveryTime.record(nanos);
+    }
+
+    void recordFailure(long nanos) {
+      attempts.increment();
+      failures.increment();
+      rediscoveryTime.record(nanos);
+    }
+
+    void recordMismatch(long nanos) {
+      mismatches.increment();
+      recordFailure(nanos);
+    }
+
+    Snapshot snapshot() {
+      return new Snapshot(attempts.sum(), successes.sum(), failures.sum(), mismatches.sum(), rediscoveryTime.snapshot());
+    }
+  }
+
+  public static class Snapshot {
+
+    private final long attempts;
+    private final long successes;
+    private final long failures;
+    private final long mismatches;
+    private final LatencyHistogram.Snapshot rediscoveryTime;
+
+    Snapshot(long attempts, long successes, long failures, long mismatches, LatencyHistogram.Snapshot rediscoveryTime) {
+      this.attempts = attempts;
+      this.successes = successes;
+      this.failures = failures;
+      this.mismatches = mismatches;
+      this.rediscoveryTime = rediscoveryTime;
+    }
+
+    public long getAttempts() {
+      return attempts;
+    }
+
+    public long getSuccesses() {
+      return successes;
+    }
+
+    public long getFailures() {
+      return failures;
+    }
+
+    /**
+     * Number of failures caused by a rediscovered element that does not match the fingerprint of the lost one.
+     */
+    public long getMismatches() {
+      return mismatches;
+    }
+
+    public LatencyHistogram.Snapshot getRediscoveryTime() {
+      return rediscoveryTime;
+    }
+
+    @Override
+    public String toString() {
+      return String.format("attempts=%d, successes=%d, failures=%d, mismatches=%d, rediscovery {%s}",
+        attempts, successes, failures, mismatches, rediscoveryTime);
+    }
+  }
+}
@@ -23,47 +23,179 @@ import ru.stqa.selenium.decorated.DecoratedWebDriver;
 
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class StaleTolerantWebDriver extends DecoratedWebDriver {
 
+  private static final int DEFAULT_MAX_TRACKED_ELEMENTS = 10000;
+
+  private final StaleRecoveryStatistics statistics = new StaleRecoveryStatistics();
+  private final AtomicLong elementKeys = new AtomicLong();
+  private final Map<Long, LocatorPath> locatorPaths;
+  private boolean checkFingerprints = false;
+
   public StaleTolerantWebDriver(final WebDriver driver) {
+    this(driver, DEFAULT_MAX_TRACKED_ELEMENTS);
+  }
+
+  /**
+   * @param maxTrackedElements how many elements keep their rediscovery data, the least recently used
+   *                           elements are forgotten first and can not be rediscovered afterwards
+   */
+  public StaleTolerantWebDriver(final WebDriver driver, final int maxTrackedElements) {
     super(driver);
+    this.locatorPaths = new LinkedHashMap<Long, LocatorPath>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Long, LocatorPath> eldest) {
+        return size() > maxTrackedElements;
+      }
+    };
+  }
+
+  /**
+   * When enabled, elements are found by a script that returns the element together with its fingerprint,
+   * and an element found by rediscovery is used only if its fingerprint matches, so that a retry never acts
+   * on a wrong element. Elements not found by the script, and elements of drivers that can not execute scripts
+   * or of locators that can not be translated to CSS or XPath, like link text, are found the usual way
+   * and get their fingerprint by a separate script call.
+   * An element whose fingerprint could not be taken when it was found is rediscovered without the check.
+   * A rediscovered element whose fingerprint can not be taken counts as a mismatch and is not used.
+   */
+  public void setCheckFingerprints(boolean checkFingerprints) {
+    this.checkFingerprints = checkFingerprints;
+  }
+
+  public StaleRecoveryStatistics getStatistics() {
+    return statistics;
   }
 
   protected Decorated<WebElement> createDecorated(WebElement original) {
     return new StaleTolerantWebElement(original, this);
   }
 
+  long nextElementKey() {
+    return elementKeys.incrementAndGet();
+  }
+
+  void rememberLocatorPath(long key, LocatorPath locatorPath) {
+    synchronized (locatorPaths) {
+      locatorPaths.put(key, locatorPath);
+    }
+  }
+
+  LocatorPath recallLocatorPath(long key) {
+    synchronized (locatorPaths) {
+      return locatorPaths.get(key);
+    }
+  }
+
   @Override
   public void afterMethod(Method method, Object res, Object[] args) {
     afterMethodGlobal(this, method, res, args);
   }
 
+  @Override
+  public Object callMethodGlobal(Decorated<?> target, Method method, Object[] args) throws Throwable {
+    if (checkFingerprints && method.getName().equals("findElement")
+      && (target == this || target instanceof StaleTolerantWebElement)) {
+      By locator = (By) args[0];
+      ElementFingerprint.Found found;
+      try {
+        found = find((SearchContext) target.getOriginal(), locator);
+      } catch (RuntimeException e) {
+        throw new InvocationTargetException(e);
+      }
+      Decorated<WebElement> elementWrapper = createDecorated(found.element);
+      ((Rediscoverable) elementWrapper).setLocatorPath(locatorPathOf(target, locator).withFingerprint(found.fingerprint));
+      return elementWrapper.getActivated();
+    }
+    return super.callMethodGlobal(target, method, args);
+  }
+
   @Override
   public void afterMethodGlobal(Decorated<?> target, Method method, Object res, Object[] args) {
     super.afterMethodGlobal(target, method, unwrap(res), args);
     if (method.getName().equals("findElement")) {
       Rediscoverable elementWrapper = (Rediscoverable) res;
-      elementWrapper.setSearchContext((SearchContext) target.getActivated());
-      elementWrapper.setLocator((By) args[0]);
+      if (elementWrapper.getLocatorPath() == null) {
+        elementWrapper.setLocatorPath(locatorPathOf(target, (By) args[0]));
+      }
+    }
+  }
+
+  private LocatorPath locatorPathOf(Decorated<?> target, By locator) {
+    if (target instanceof StaleTolerantWebElement) {
+      StaleTolerantWebElement parent = (StaleTolerantWebElement) target;
+      return LocatorPath.inElement(parent.getLocatorPath(), parent, locator);
+    }
+    return LocatorPath.inDriver(locator);
+  }
+
+  private ElementFingerprint.Found find(SearchContext context, By locator) {
+    ElementFingerprint.Found found = null;
+    try {
+      found = ElementFingerprint.find(getOriginal(), context, locator);
+    } catch (StaleElementReferenceException e) {
+      throw e;
+    } catch (WebDriverException e) {
+      // the script has failed, the element is found the usual way
+    }
+    if (found == null) {
+      WebElement element = context.findElement(locator);
+      found = new ElementFingerprint.Found(element, fingerprintOf(element));
+    }
+    return found;
+  }
+
+  private String fingerprintOf(WebElement element) {
+    try {
+      return ElementFingerprint.of(getOriginal(), element);
+    } catch (WebDriverException e) {
+      return null;
     }
   }
 
   @Override
   public Object onErrorGlobal(Decorated<?> target, Method method, InvocationTargetException e, Object[] args) throws Throwable {
     Throwable te = e.getTargetException();
-    if (te instanceof StaleElementReferenceException) {
+    if (te instanceof StaleElementReferenceException && target instanceof StaleTolerantWebElement) {
       StaleTolerantWebElement elementWrapper = (StaleTolerantWebElement) target;
-      try {
-        WebElement newElement = elementWrapper.getSearchContext().findElement(elementWrapper.getLocator());
+      LocatorPath locatorPath = elementWrapper.getLocatorPath();
+      if (locatorPath != null && locatorPath.getLocator() != null) {
+        StaleRecoveryStatistics.LocatorStatistics locatorStatistics = statistics.forLocator(locatorPath.getLocator());
+        long start = System.nanoTime();
+        WebElement newElement;
+        String[] fingerprint = new String[1];
+        try {
+          if (locatorPath.getFingerprint() == null) {
+            newElement = locatorPath.rediscover(getOriginal());
+          } else {
+            newElement = locatorPath.rediscover(getOriginal(), (context, locator) -> {
+              ElementFingerprint.Found found = find(context, locator);
+              fingerprint[0] = found.fingerprint;
+              return found.element;
+            });
+          }
+        } catch (NoSuchElementException | StaleElementReferenceException ex) {
+          newElement = null;
+        }
+        if (newElement == null) {
+          locatorStatistics.recordFailure(System.nanoTime() - start);
+          throw Throwables.propagate(te);
+        }
+        if (locatorPath.getFingerprint() != null && !locatorPath.getFingerprint().equals(fingerprint[0])) {
+          locatorStatistics.recordMismatch(System.nanoTime() - start);
+          throw Throwables.propagate(te);
+        }
+        locatorStatistics.recordSuccess(System.nanoTime() - start);
         elementWrapper.setOriginal(newElement);
         try {
           return callMethodGlobal(target, method, args);
         } catch (InvocationTargetException e1) {
           throw Throwables.propagate(e1.getTargetException());
         }
-      } catch (NoSuchElementException ex) {
-        throw Throwables.propagate(te);
       }
     }
     throw Throwables.propagate(te);
@@ -16,7 +16,6 @@
 
 package ru.stqa.selenium.decorated.stale;
 
-import org.openqa.selenium.By;
 import org.openqa.selenium.SearchContext;
 import org.openqa.selenium.WebElement;
 import ru.stqa.selenium.decorated.DecoratedWebElement;
@@ -25,11 +24,13 @@ import java.lang.reflect.Method;
 
 public class StaleTolerantWebElement extends DecoratedWebElement implements Rediscoverable {
 
-  private SearchContext searchContext;
-  private By locator;
+  private final StaleTolerantWebDriver driver;
+  private final long key;
 
   public StaleTolerantWebElement(WebElement element, StaleTolerantWebDriver driver) {
     super(element, driver);
+    this.driver = driver;
+    this.key = driver.nextElementKey();
   }
 
   @Override
@@ -38,22 +39,25 @@ public class StaleTolerantWebElement extends DecoratedWebElement implements Redi
   }
 
   @Override
-  public void setSearchContext(SearchContext searchContext) {
-    this.searchContext = searchContext;
+  public void setLocatorPath(LocatorPath locatorPath) {
+    driver.rememberLocatorPath(key, locatorPath);
   }
 
   @Override
-  public SearchContext getSearchContext() {
-    return searchContext;
+  public LocatorPath getLocatorPath() {
+    return driver.recallLocatorPath(key);
   }
 
+  /**
+   * @deprecated the search context is a part of the locator path, use {@link #getLocatorPath()}
+   */
   @Override
-  public void setLocator(By locator) {
-    this.locator = locator;
-  }
-
-  @Override
-  public By getLocator() {
-    return locator;
+  @Deprecated
+  public SearchContext getSearchContext() {
+    LocatorPath locatorPath = getLocatorPath();
+    if (locatorPath != null && locatorPath.isInDriver()) {
+      return driver.getActivated();
+    }
+    return Rediscoverable.super.getSearchContext();
   }
 }
@@ -20,18 +20,34 @@ import org.junit.jupiter.api.Test;
 import org.mockito.InOrder;
 import org.openqa.selenium.*;
 
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.*;
 
 class StaleTolerantWebDriverTest {
 
   private static class Fixture {
     WebDriver mockedDriver;
+    StaleTolerantWebDriver decorated;
     WebDriver driver;
 
     public Fixture() {
       mockedDriver = mock(WebDriver.class);
-      driver = new StaleTolerantWebDriver(mockedDriver).getActivated();
+      decorated = new StaleTolerantWebDriver(mockedDriver);
+      driver = decorated.getActivated();
     }
   }
 
@@ -217,4 +233,250 @@ class StaleTolerantWebDriverTest {
     verifyNoMoreInteractions(element2);
   }
 
+  @Test
+  void shouldCountRecoveriesPerLocator() {
+    Fixture fixture = new Fixture();
+
+    WebElement element1 = mock(WebElement.class);
+    WebElement element2 = mock(WebElement.class);
+    WebElement element3 = mock(WebElement.class);
+
+    when(fixture.mockedDriver.findElement(By.id("test")))
+      .thenReturn(element1).thenReturn(element2);
+    when(fixture.mockedDriver.findElement(By.id("gone")))
+      .thenReturn(element3).thenThrow(NoSuchElementException.class);
+    doThrow(StaleElementReferenceException.class).when(element1).click();
+    doThrow(StaleElementReferenceException.class).when(element3).click();
+
+    fixture.driver.findElement(By.id("test")).click();
+    WebElement gone = fixture.driver.findElement(By.id("gone"));
+    assertThrows(StaleElementReferenceException.class, gone::click);
+
+    Map<By, StaleRecoveryStatistics.Snapshot> snapshot = fixture.decorated.getStatistics().snapshot();
+    assertThat(snapshot.size(), is(2));
+    StaleRecoveryStatistics.Snapshot recovered = snapshot.get(By.id("test"));
+    assertThat(recovered.getAttempts(), is(1L));
+    assertThat(recovered.getSuccesses(), is(1L));
+    assertThat(recovered.getFailures(), is(0L));
+    assertThat(recovered.getRediscoveryTime().getCount(), is(1L));
+    StaleRecoveryStatistics.Snapshot lost = snapshot.get(By.id("gone"));
+    assertThat(lost.getAttempts(), is(1L));
+    assertThat(lost.getSuccesses(), is(0L));
+    assertThat(lost.getFailures(), is(1L));
+  }
+
+  @Test
+  void shouldForgetLeastRecentlyUsedElements() {
+    WebDriver mockedDriver = mock(WebDriver.class);
+    WebDriver driver = new StaleTolerantWebDriver(mockedDriver, 1).getActivated();
+
+    WebElement element1 = mock(WebElement.class);
+    WebElement element2 = mock(WebElement.class);
+
+    when(mockedDriver.findElement(By.id("first"))).thenReturn(element1);
+    when(mockedDriver.findElement(By.id("second"))).thenReturn(element2);
+    doThrow(StaleElementReferenceException.class).when(element1).click();
+
+    WebElement first = driver.findElement(By.id("first"));
+    driver.findElement(By.id("second"));
+    assertThrows(StaleElementReferenceException.class, first::click);
+
+    verify(mockedDriver, times(1)).findElement(By.id("first"));
+    verify(element1, times(1)).click();
+  }
+
+  @Test
+  void shouldNotActOnRediscoveredElementWithDifferentFingerprint() {
+    WebDriver mockedDriver = mock(WebDriver.class, withSettings().extraInterfaces(JavascriptExecutor.class));
+    StaleTolerantWebDriver decorated = new StaleTolerantWebDriver(mockedDriver);
+    decorated.setCheckFingerprints(true);
+    WebDriver driver = decorated.getActivated();
+
+    WebElement element1 = mock(WebElement.class);
+    WebElement element2 = mock(WebElement.class);
+
+    when(((JavascriptExecutor) mockedDriver).executeScript(anyString(), isNull(), eq("css"), eq("[id=\"test\"]")))
+      .thenReturn(Arrays.asList(element1, "li|||||17")).thenReturn(Arrays.asList(element2, "li|||||42"));
+    doThrow(StaleElementReferenceException.class).when(element1).click();
+
+    WebElement element = driver.findElement(By.id("test"));
+    assertThrows(StaleElementReferenceException.class, element::click);
+
+    verify(element2, never()).click();
+    StaleRecoveryStatistics.Snapshot stats = decorated.getStatistics().snapshot().get(By.id("test"));
+    assertThat(stats.getFailures(), is(1L));
+    assertThat(stats.getMismatches(), is(1L));
+  }
+
+  @Test
+  void shouldFindElementsAndTheirFingerprintsInASingleScript() {
+    WebDriver mockedDriver = mock(WebDriver.class, withSettings().extraInterfaces(JavascriptExecutor.class));
+    StaleTolerantWebDriver decorated = new StaleTolerantWebDriver(mockedDriver);
+    decorated.setCheckFingerprints(true);
+    WebDriver driver = decorated.getActivated();
+
+    WebElement parent = mock(WebElement.class);
+    WebElement element1 = mock(WebElement.class);
+    WebElement element2 = mock(WebElement.class);
+
+    JavascriptExecutor executor = (JavascriptExecutor) mockedDriver;
+    when(executor.executeScript(anyString(), isNull(), eq("css"), eq("[id=\"parent\"]")))
+      .thenReturn(Arrays.asList(parent, "ul|||||0"));
+    when(executor.executeScript(anyString(), eq(parent), eq("xpath"), eq("./li")))
+      .thenReturn(Arrays.asList(element1, "li|||||17")).thenReturn(Arrays.asList(element2, "li|||||17"));
+    doThrow(StaleElementReferenceException.class).when(element1).click();
+
+    driver.findElement(By.id("parent")).findElement(By.xpath("./li")).click();
+
+    verify(element2).click();
+    verify(executor, times(3)).executeScript(anyString(), any(), anyString(), anyString());
+    verifyNoMoreInteractions(executor);
+    verifyNoMoreInteractions(parent);
+  }
+
+  @Test
+  void shouldFindElementsTheUsualWayIfTheScriptFails() {
+    WebDriver mockedDriver = mock(WebDriver.class, withSettings().extraInterfaces(JavascriptExecutor.class));
+    StaleTolerantWebDriver decorated = new StaleTolerantWebDriver(mockedDriver);
+    decorated.setCheckFingerprints(true);
+    WebDriver driver = decorated.getActivated();
+
+    WebElement element1 = mock(WebElement.class);
+    WebElement element2 = mock(WebElement.class);
+
+    JavascriptExecutor executor = (JavascriptExecutor) mockedDriver;
+    when(executor.executeScript(anyString(), isNull(), eq("css"), eq("[id=\"test\"]")))
+      .thenReturn(Arrays.asList(element1, "li|||||17"))
+      .thenThrow(new WebDriverException("Script failed"));
+    when(mockedDriver.findElement(By.id("test"))).thenReturn(element2);
+    when(executor.executeScript(anyString(), eq(element2))).thenThrow(new WebDriverException("Script failed"));
+    doThrow(StaleElementReferenceException.class).when(element1).click();
+
+    WebElement element = driver.findElement(By.id("test"));
+    assertThrows(StaleElementReferenceException.class, element::click);
+
+    verify(element2, never()).click();
+    StaleRecoveryStatistics.Snapshot stats = decorated.getStatistics().snapshot().get(By.id("test"));
+    assertThat(stats.getMismatches(), is(1L));
+
+    assertThat(driver.findElement(By.id("test")), is(notNullValue()));
+  }
+
+  @Test
+  void shouldFindElementsTheUsualWayIfTheLocatorCanNotBeTranslated() {
+    WebDriver mockedDriver = mock(WebDriver.class, withSettings().extraInterfaces(JavascriptExecutor.class));
+    StaleTolerantWebDriver decorated = new StaleTolerantWebDriver(mockedDriver);
+    decorated.setCheckFingerprints(true);
+    WebDriver driver = decorated.getActivated();
+
+    WebElement element1 = mock(WebElement.class);
+    WebElement element2 = mock(WebElement.class);
+
+    when(mockedDriver.findElement(By.linkText("Home"))).thenReturn(element1).thenReturn(element2);
+    when(((JavascriptExecutor) mockedDriver).executeScript(anyString(), any(WebElement.class))).thenReturn("a|||||17");
+    doThrow(StaleElementReferenceException.class).when(element1).click();
+
+    driver.findElement(By.linkText("Home")).click();
+
+    verify(element2).click();
+  }
+
+  @Test
+  void shouldRediscoverAChildOfAStaleParentWithoutRepointingTheParent() {
+    Fixture fixture = new Fixture();
+
+    WebElement parent1 = mock(WebElement.class);
+    WebElement parent2 = mock(WebElement.class);
+    WebElement parent3 = mock(WebElement.class);
+    WebElement child1 = mock(WebElement.class);
+    WebElement child2 = mock(WebElement.class);
+
+    when(fixture.mockedDriver.findElement(By.id("parent")))
+      .thenReturn(parent1).thenReturn(parent2).thenReturn(parent3);
+    when(parent1.findElement(By.id("child")))
+      .thenReturn(child1).thenThrow(StaleElementReferenceException.class);
+    when(parent2.findElement(By.id("child"))).thenReturn(child2);
+    doThrow(StaleElementReferenceException.class).when(child1).click();
+    when(parent1.getText()).thenThrow(StaleElementReferenceException.class);
+    when(parent3.getText()).thenReturn("parent");
+
+    WebElement parent = fixture.driver.findElement(By.id("parent"));
+    WebElement child = parent.findElement(By.id("child"));
+    child.click();
+
+    assertThat(parent.getText(), is("parent"));
+
+    InOrder inOrder = inOrder(fixture.mockedDriver, parent1, parent2, parent3, child1, child2);
+    inOrder.verify(child1).click();
+    inOrder.verify(fixture.mockedDriver).findElement(By.id("parent"));
+    inOrder.verify(parent2).findElement(By.id("child"));
+    inOrder.verify(child2).click();
+    inOrder.verify(parent1).getText();
+    inOrder.verify(fixture.mockedDriver).findElement(By.id("parent"));
+    inOrder.verify(parent3).getText();
+    verify(parent2, never()).getText();
+  }
+
+  @Test
+  void shouldRediscoverAChildWhoseParentWrapperIsGone() {
+    Fixture fixture = new Fixture();
+
+    WebElement parent1 = mock(WebElement.class);
+    WebElement parent2 = mock(WebElement.class);
+    WebElement child1 = mock(WebElement.class);
+    WebElement child2 = mock(WebElement.class);
+
+    when(fixture.mockedDriver.findElement(By.id("parent")))
+      .thenReturn(parent1).thenReturn(parent2);
+    when(parent1.findElement(By.id("child"))).thenReturn(child1);
+    when(parent2.findElement(By.id("child"))).thenReturn(child2);
+    doThrow(StaleElementReferenceException.class).when(child1).click();
+
+    List<WeakReference<WebElement>> parentRef = new ArrayList<>();
+    WebElement child = findChild(fixture.driver, parentRef);
+    for (int i = 0; i < 100 && parentRef.get(0).get() != null; i++) {
+      System.gc();
+    }
+    assertThat(parentRef.get(0).get(), is(nullValue()));
+
+    child.click();
+
+    InOrder inOrder = inOrder(fixture.mockedDriver, parent2, child1, child2);
+    inOrder.verify(child1).click();
+    inOrder.verify(fixture.mockedDriver).findElement(By.id("parent"));
+    inOrder.verify(parent2).findElement(By.id("child"));
+    inOrder.verify(child2).click();
+    verify(parent1, times(1)).findElement(By.id("child"));
+  }
+
+  private static WebElement findChild(WebDriver driver, List<WeakReference<WebElement>> parentRef) {
+    WebElement parent = driver.findElement(By.id("parent"));
+    parentRef.add(new WeakReference<>(parent));
+    return parent.findElement(By.id("child"));
+  }
+
+  @Test
+  @SuppressWarnings("deprecation")
+  void shouldKeepTheDeprecatedLocatorAccessors() {
+    Fixture fixture = new Fixture();
+
+    WebElement parent1 = mock(WebElement.class);
+    WebElement child1 = mock(WebElement.class);
+
+    when(fixture.mockedDriver.findElement(By.id("parent"))).thenReturn(parent1);
+    when(parent1.findElement(By.id("child"))).thenReturn(child1);
+
+    WebElement parent = fixture.driver.findElement(By.id("parent"));
+    WebElement child = parent.findElement(By.id("child"));
+
+    assertThat(((Rediscoverable) parent).getLocator(), is(By.id("parent")));
+    assertThat(((Rediscoverable) parent).getSearchContext(), is(sameInstance(fixture.driver)));
+    assertThat(((Rediscoverable) child).getLocator(), is(By.id("child")));
+    assertThat(((Rediscoverable) child).getSearchContext(), is(sameInstance(parent)));
+
+    ((Rediscoverable) child).setLocator(By.id("other"));
+    assertThat(((Rediscoverable) child).getLocatorPath().getParent(), is(((Rediscoverable) parent).getLocatorPath()));
+    assertThat(((Rediscoverable) child).getLocator(), is(By.id("other")));
+  }
+
 }
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2013 Alexei Barantsev
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package ru.stqa.selenium.wait;
+
+import org.openqa.selenium.By;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Starts with short pauses and backs off exponentially with random jitter. It also learns how long
+ * elements take to appear for each locator and makes the first retry at the expected appearance time.
+ * Learned times are kept for a bounded number of recently used locators.
+ */
+public class AdaptivePolling implements PollingStrategy {
+
+  private final long initialInterval;
+  private final long maxInterval;
+  private final double multiplier;
+  private final double jitter;
+  private final Map<By, Long> appearanceTimes;
+
+  public AdaptivePolling() {
+    this(50, 1000, 2, 0.2, 1000);
+  }
+
+  /**
+   * @param jitter the fraction of each pause that is randomized, 0 disables jitter
+   * @param maxLocators how many locators have their appearance times remembered
+   */
+  public AdaptivePolling(long initialInterval, long maxInterval, double multiplier, double jitter, final int maxLocators) {
+    this.initialInterval = initialInterval;
+    this.maxInterval = maxInterval;
+    this.multiplier = multiplier;
+    this.jitter = jitter;
+    this.appearanceTimes = new LinkedHashMap<By, Long>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<By, Long> eldest) {
+        return size() > maxLocators;
+      }
+    };
+  }
+
+  @Override
+  public long nextInterval(By locator, int retry) {
+    if (retry == 1 && locator != null) {
+      Long expected;
+      synchronized (appearanceTimes) {
+        expected = appearanceTimes.get(locator);
+      }
+      if (expected != null) {
+        return Math.min(maxInterval, Math.max(initialInterval, expected));
+      }
+    }
+    double interval = Math.min(maxInterval, initialInterval * Math.pow(multiplier, retry - 1));
+    if (jitter > 0) {
+      interval *= 1 + jitter * (2 * ThreadLocalRandom.current().nextDouble() - 1);
+    }
+    return Math.max(1, Math.round(interval));
+  }
+
+  @Override
+  public void succeeded(By locator, long waited) {
+    if (locator == null) {
+      return;
+    }
+    synchronized (appearanceTimes) {
+      Long previous = appearanceTimes.get(locator);
+      appearanceTimes.put(locator, previous == null ? waited : (previous * 3 + waited) / 4);
+    }
+  }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2013 Alexei Barantsev
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package ru.stqa.selenium.wait;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Several locators checked together. If all of them can be evaluated in the browser,
+ * a single script checks them all, otherwise they are looked up one by one.
+ */
+final class AnyOfLocators {
+
+  private static final String FIND_FIRST = ScriptLocator.FIND_ALL +
+    "var locators = arguments[0];" +
+    "for (var i = 0; i < locators.length; i++) {" +
+    "  var found = findAll(null, locators[i][0], locators[i][1]);" +
+    "  if (found.length > 0) { return [i, found[0]]; }" +
+    "}" +
+    "return null;";
+
+  private final List<By> locators;
+  private final List<List<String>> scriptLocators;
+
+  AnyOfLocators(List<By> locators, boolean useScript) {
+    this.locators = locators;
+    this.scriptLocators = useScript ? toScriptLocators(locators) : null;
+  }
+
+  List<By> getLocators() {
+    return locators;
+  }
+
+  private static List<List<String>> toScriptLocators(List<By> locators) {
+    List<List<String>> result = new ArrayList<>(locators.size());
+    for (By locator : locators) {
+      ScriptLocator scriptLocator = ScriptLocator.of(locator);
+      if (scriptLocator == null) {
+        return null;
+      }
+      result.add(Arrays.asList(scriptLocator.getStrategy(), scriptLocator.getExpression()));
+    }
+    return result;
+  }
+
+  /**
+   * Returns the index of the first matching locator and the element found, or null if nothing matches.
+   */
+  Object[] findFirst(WebDriver driver) {
+    if (scriptLocators != null) {
+      Object found = ((JavascriptExecutor) driver).executeScript(FIND_FIRST, scriptLocators);
+      if (found instanceof List && ((List<?>) found).size() == 2) {
+        List<?> pair = (List<?>) found;
+        return new Object[] {((Number) pair.get(0)).intValue(), pair.get(1)};
+      }
+      return null;
+    }
+    for (int i = 0; i < locators.size(); i++) {
+      List<WebElement> found = driver.findElements(locators.get(i));
+      if (!found.isEmpty()) {
+        return new Object[] {i, found.get(0)};
+      }
+    }
+    return null;
+  }
+}
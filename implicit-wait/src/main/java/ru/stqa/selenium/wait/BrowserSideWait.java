@@ -0,0 +1,52 @@
+/*
+ * Copyright 2013 Alexei Barantsev
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package ru.stqa.selenium.wait;
+
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebElement;
+
+/**
+ * Waits for an element in the browser: a single asynchronous script watches DOM mutations
+ * and returns as soon as the locator matches, or null when the timeout expires.
+ */
+final class BrowserSideWait {
+
+  private static final String WAIT_FOR_ELEMENT = ScriptLocator.FIND_ALL +
+    "var root = arguments[0], strategy = arguments[1], expression = arguments[2], timeout = arguments[3];" +
+    "var done = arguments[arguments.length - 1];" +
+    "var first = function() { return findAll(root, strategy, expression)[0] || null; };" +
+    "var found = first();" +
+    "if (found || timeout <= 0) { done(found); return; }" +
+    "var timer;" +
+    "var observer = new MutationObserver(function() {" +
+    "  var element = first();" +
+    "  if (element) { observer.disconnect(); clearTimeout(timer); done(element); }" +
+    "});" +
+    "observer.observe(root || document, {childList: true, subtree: true, attributes: true});" +
+    "timer = setTimeout(function() { observer.disconnect(); done(first()); }, timeout);";
+
+  private BrowserSideWait() {}
+
+  /**
+   * @param root the element to search in, or null to search in the document
+   */
+  static WebElement findElement(JavascriptExecutor executor, WebElement root, ScriptLocator locator, long timeoutInMillis) {
+    Object found = executor.executeAsyncScript(
+      WAIT_FOR_ELEMENT, root, locator.getStrategy(), locator.getExpression(), timeoutInMillis);
+    return found instanceof WebElement ? (WebElement) found : null;
+  }
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright 2013 Alexei Barantsev
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package ru.stqa.selenium.wait;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+import ru.stqa.trier.Clock;
+
+import java.util.List;
+
+/**
+ * A condition on the number of elements matching a locator. Each check costs a single query: a script
+ * if the locator can be evaluated in the browser, that returns just the count unless the condition holds,
+ * and the elements found by the same query when it does.
+ * Instances keep the state of stability checks, so one instance serves a single wait.
+ */
+final class ElementCountCondition {
+
+  private static final String FIND_IF_COUNT_MATCHES = ScriptLocator.FIND_ALL +
+    "var found = findAll(null, arguments[0], arguments[1]);" +
+    "return found.length >= arguments[2] && found.length <= arguments[3] ? found : found.length;";
+
+  private final By locator;
+  private final int min;
+  private final int max;
+  private final long stableMillis;
+  private final Clock clock;
+  private ScriptLocator scriptLocator;
+
+  private int lastCount = -1;
+  private long lastChange;
+
+  private ElementCountCondition(By locator, int min, int max, long stableMillis, Clock clock) {
+    this.locator = locator;
+    this.min = min;
+    this.max = max;
+    this.stableMillis = stableMillis;
+    this.clock = clock;
+  }
+
+  static ElementCountCondition atLeast(By locator, int count) {
+    return new ElementCountCondition(locator, count, Integer.MAX_VALUE, 0, null);
+  }
+
+  static ElementCountCondition exactly(By locator, int count) {
+    return new ElementCountCondition(locator, count, count, 0, null);
+  }
+
+  static ElementCountCondition stable(By locator, long stableMillis, Clock clock) {
+    return new ElementCountCondition(locator, 1, Integer.MAX_VALUE, stableMillis, clock);
+  }
+
+  ElementCountCondition usingScripts(boolean useScripts) {
+    this.scriptLocator = useScripts ? ScriptLocator.of(locator) : null;
+    return this;
+  }
+
+  /**
+   * Returns the found elements if the condition holds, null otherwise.
+   */
+  @SuppressWarnings("unchecked")
+  List<WebElement> check(WebDriver driver) {
+    List<WebElement> elements = null;
+    int count;
+    long now = stableMillis > 0 ? clock.now() : 0;
+    if (scriptLocator != null) {
+      int from = min;
+      int to = max;
+      if (stableMillis > 0) {
+        // the elements are needed only if the count stays the same after it has been stable long enough
+        boolean settled = lastCount >= min && lastCount <= max && now - lastChange >= stableMillis;
+        from = to = settled ? lastCount : -1;
+      }
+      Object result = ((JavascriptExecutor) driver).executeScript(
+        FIND_IF_COUNT_MATCHES, scriptLocator.getStrategy(), scriptLocator.getExpression(), from, to);
+      if (result instanceof List) {
+        elements = (List<WebElement>) result;
+        count = elements.size();
+      } else {
+        count = result instanceof Number ? ((Number) result).intValue() : 0;
+      }
+    } else {
+      elements = driver.findElements(locator);
+      count = elements.size();
+    }
+
+    if (count < min || count > max) {
+      lastCount = count;
+      return null;
+    }
+    if (stableMillis > 0) {
+      if (count != lastCount) {
+        lastCount = count;
+        lastChange = now;
+      }
+      if (now - lastChange < stableMillis) {
+        return null;
+      }
+    }
+    return elements;
+  }
+
+  @Override
+  public String toString() {
+    String expected = stableMillis > 0 ? String.format("a stable number of elements for %d ms", stableMillis)
+      : min == max ? String.format("exactly %d elements", min)
+      : String.format("at least %d elements", min);
+    return String.format("%s by %s (last found %d)", expected, locator, lastCount);
+  }
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2013 Alexei Barantsev
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package ru.stqa.selenium.wait;
+
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebElement;
+
+/**
+ * Reads a property of an element, in a single script if the driver can execute scripts,
+ * or by the corresponding element method otherwise. The script follows the semantics of the element methods:
+ * attributes prefer the live property, so "value" reflects typed text and "checked" or "disabled" read
+ * as "true" or null, and the text is the whitespace normalized rendered text, empty for hidden elements.
+ */
+final class ElementProbe {
+
+  private static final String TEXT = "text";
+  private static final String ATTRIBUTE = "attribute";
+  private static final String DISPLAYED = "displayed";
+
+  // properties that WebDriver reports as "true" or null, like the getAttribute atom does
+  private static final String BOOLEAN_ATTRIBUTES =
+    "['allowfullscreen', 'async', 'autofocus', 'autoplay', 'checked', 'compact', 'complete', 'controls'," +
+    " 'declare', 'default', 'defaultchecked', 'defaultselected', 'defer', 'disabled', 'ended', 'formnovalidate'," +
+    " 'hidden', 'indeterminate', 'iscontenteditable', 'ismap', 'itemscope', 'loop', 'multiple', 'muted', 'nohref'," +
+    " 'noresize', 'noshade', 'novalidate', 'nowrap', 'open', 'paused', 'playsinline', 'pubdate', 'readonly'," +
+    " 'required', 'reversed', 'scoped', 'seamless', 'seeking', 'selected', 'truespeed', 'willvalidate']";
+
+  private static final String READ =
+    "var element = arguments[0], property = arguments[1], name = arguments[2];" +
+    "function displayed(element) {" +
+    "  if (!element.isConnected) { return false; }" +
+    "  for (var node = element; node && node.nodeType === 1; node = node.parentElement) {" +
+    "    var style = window.getComputedStyle(node);" +
+    "    if (style.display === 'none' || style.opacity === '0') { return false; }" +
+    "    if (node === element && style.visibility !== 'visible') { return false; }" +
+    "  }" +
+    "  var rect = element.getBoundingClientRect();" +
+    "  return rect.width > 0 && rect.height > 0;" +
+    "}" +
+    "if (property === 'text') {" +
+    "  if (!displayed(element)) { return ''; }" +
+    "  return (element.innerText || '').replace(/\u00a0/g, ' ').split('\n')" +
+    "    .map(function(line) { return line.replace(/[ \t\r]+/g, ' ').trim(); })" +
+    "    .join('\n').replace(/^\n+|\n+$/g, '');" +
+    "}" +
+    "if (property === 'attribute') {" +
+    "  var lower = name.toLowerCase();" +
+    "  if (lower === 'style') { return element.style ? element.style.cssText : element.getAttribute(name); }" +
+    "  if (" + BOOLEAN_ATTRIBUTES + ".indexOf(lower) >= 0) {" +
+    "    var flag = element[lower];" +
+    "    return flag === true || (flag !== false && element.hasAttribute(name)) ? 'true' : null;" +
+    "  }" +
+    "  var value = element[lower === 'class' ? 'className' : name];" +
+    "  if (value !== undefined && value !== null && typeof value !== 'object' && typeof value !== 'function') {" +
+    "    return String(value);" +
+    "  }" +
+    "  return element.getAttribute(name);" +
+    "}" +
+    "return displayed(element);";
+
+  private final JavascriptExecutor executor;
+  private final String property;
+  private final String name;
+
+  private ElementProbe(JavascriptExecutor executor, String property, String name) {
+    this.executor = executor;
+    this.property = property;
+    this.name = name;
+  }
+
+  /**
+   * @param executor the driver to run the script with, or null to use element methods
+   */
+  static ElementProbe text(JavascriptExecutor executor) {
+    return new ElementProbe(executor, TEXT, null);
+  }
+
+  static ElementProbe attribute(JavascriptExecutor executor, String name) {
+    return new ElementProbe(executor, ATTRIBUTE, name);
+  }
+
+  static ElementProbe displayed(JavascriptExecutor executor) {
+    return new ElementProbe(executor, DISPLAYED, null);
+  }
+
+  Object read(WebElement element) {
+    if (executor != null) {
+      return executor.executeScript(READ, element, property, name);
+    }
+    switch (property) {
+      case TEXT:
+        return element.getText();
+      case ATTRIBUTE:
+        return element.getAttribute(name);
+      default:
+        return element.isDisplayed();
+    }
+  }
+
+  @Override
+  public String toString() {
+    return name == null ? property : property + " " + name;
+  }
+}
@@ -0,0 +1,38 @@
+/*
+ * Copyright 2013 Alexei Barantsev
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package ru.stqa.selenium.wait;
+
+/**
+ * Decides whether a failed attempt of a waited call should be retried.
+ */
+public interface ExceptionClassifier {
+
+  enum Kind {
+    /** The call is retried until the timeout expires. */
+    RETRYABLE,
+    /** The exception is thrown at once, waiting can not help. */
+    FATAL,
+    /** The call is retried, but no more than {@link #retryLimit(Throwable)} times. */
+    LIMITED
+  }
+
+  Kind classify(Throwable failure);
+
+  default int retryLimit(Throwable failure) {
+    return 0;
+  }
+}
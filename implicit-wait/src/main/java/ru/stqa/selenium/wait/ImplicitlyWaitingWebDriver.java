@@ -21,14 +21,25 @@ import org.openqa.selenium.interactions.Coordinates;
 import org.openqa.selenium.interactions.Locatable;
 import ru.stqa.selenium.decorated.*;
 import ru.stqa.trier.Clock;
-import ru.stqa.trier.LimitExceededException;
 import ru.stqa.trier.Sleeper;
-import ru.stqa.trier.TimeBasedTrier;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
-import java.util.function.Consumer;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
 
 public class ImplicitlyWaitingWebDriver extends DecoratedWebDriver {
 
@@ -44,11 +55,106 @@ public class ImplicitlyWaitingWebDriver extends DecoratedWebDriver {
 
   private static final long DEFAULT_TIMEOUT = 10;
   private static final long DEFAULT_SLEEP_TIMEOUT = 500;
+  // pages with animation loops or long polling never become idle, so the readiness gate waits only briefly
+  private static final long PAGE_READINESS_TIMEOUT = 250;
+
+  // Actions are non-capturing, so they are allocated once and waiting does not create garbage
+  private static final BiFunction<SearchContext, By, WebElement> FIND_ELEMENT =
+    named("findElement", SearchContext::findElement);
+  private static final BiFunction<SearchContext, By, List<WebElement>> FIND_ELEMENTS =
+    named("findElements", SearchContext::findElements);
+  private static final BiFunction<WebElement, Void, Void> CLICK = named("click", (element, none) -> {
+    element.click();
+    return null;
+  });
+  private static final BiFunction<WebElement, Void, Void> SUBMIT = named("submit", (element, none) -> {
+    element.submit();
+    return null;
+  });
+  private static final BiFunction<WebElement, CharSequence[], Void> SEND_KEYS = named("sendKeys", (element, keys) -> {
+    element.sendKeys(keys);
+    return null;
+  });
+  private static final BiFunction<WebElement, Void, Void> CLEAR = named("clear", (element, none) -> {
+    element.clear();
+    return null;
+  });
+  private static final BiFunction<WebElement, Void, Boolean> IS_SELECTED =
+    named("isSelected", (element, none) -> element.isSelected());
+  private static final BiFunction<WebElement, Void, Boolean> IS_ENABLED =
+    named("isEnabled", (element, none) -> element.isEnabled());
+  private static final BiFunction<WebElement, Void, Coordinates> GET_COORDINATES =
+    named("getCoordinates", (element, none) -> ((Locatable) element).getCoordinates());
+  private static final BiFunction<TargetLocator, Void, Alert> ALERT = named("alert", (locator, none) -> locator.alert());
+  private static final BiFunction<TargetLocator, Integer, WebDriver> FRAME_BY_INDEX =
+    named("frame", (locator, index) -> locator.frame(index));
+  private static final BiFunction<TargetLocator, String, WebDriver> FRAME_BY_NAME =
+    named("frame", (locator, idOrName) -> locator.frame(idOrName));
+  private static final BiFunction<WebElement, ElementProbe, Object> WAIT_FOR_TEXT =
+    named("waitForText", (element, probe) -> probe.read(element));
+  private static final BiFunction<WebElement, ElementProbe, Object> WAIT_FOR_ATTRIBUTE =
+    named("waitForAttribute", (element, probe) -> probe.read(element));
+  private static final BiFunction<WebElement, ElementProbe, Object> WAIT_UNTIL_DISPLAYED =
+    named("waitUntilDisplayed", (element, probe) -> probe.read(element));
+
+  private static final BiFunction<WebDriver, AnyOfLocators, Object[]> FIND_FIRST =
+    named("findFirst", (driver, locators) -> locators.findFirst(driver));
+  private static final BiFunction<WebDriver, ElementCountCondition, List<WebElement>> CHECK_COUNT =
+    named("findElementCount", (driver, condition) -> condition.check(driver));
+
+  private static final Predicate<Object> NEVER = result -> false;
+  private static final Predicate<List<?>> EMPTY = List::isEmpty;
+
+  /**
+   * Gives the action the name of the method it performs, used to account for wait time.
+   */
+  private static <T, A, R> BiFunction<T, A, R> named(String name, BiFunction<T, A, R> action) {
+    return new BiFunction<T, A, R>() {
+      @Override
+      public R apply(T target, A arg) {
+        return action.apply(target, arg);
+      }
+
+      @Override
+      public String toString() {
+        return name;
+      }
+    };
+  }
+
+  // times the pauses of async waits, the attempts are handed over to the executor
+  private static class SharedScheduler {
+    static final ScheduledExecutorService INSTANCE = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "implicit-wait-timer");
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  // makes the blocking calls of async waits, a thread per call in progress, idle threads are dropped
+  private static class SharedExecutor {
+    private static final AtomicInteger threads = new AtomicInteger();
+    static final ExecutorService INSTANCE = Executors.newCachedThreadPool(runnable -> {
+      Thread thread = new Thread(runnable, "implicit-wait-" + threads.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
 
   private long timeout = DEFAULT_TIMEOUT;
-  private long interval = DEFAULT_SLEEP_TIMEOUT;
+  private PollingStrategy pollingStrategy;
   private Clock clock;
   private Sleeper sleeper;
+  private boolean browserSideWaiting = false;
+  private boolean pageReadinessGate = false;
+  private WaitPolicy waitPolicy;
+  private ExceptionClassifier exceptionClassifier = new WebDriverExceptionClassifier();
+  private final ThreadLocal<WaitScope> waitScope = new ThreadLocal<>();
+  private ScheduledExecutorService scheduler;
+  private Executor executor;
+  private final WaitStatistics statistics = new WaitStatistics();
+  // wait times are measured with a monotonic nanosecond source, the clock only decides when to stop
+  private LongSupplier nanoTime = System::nanoTime;
 
   public ImplicitlyWaitingWebDriver(final WebDriver driver) {
     this(driver, DEFAULT_TIMEOUT);
@@ -59,143 +165,596 @@ public class ImplicitlyWaitingWebDriver extends DecoratedWebDriver {
   }
 
   public ImplicitlyWaitingWebDriver(final WebDriver driver, long timeoutInSeconds, long sleepTimeOut) {
-    this(driver, new Clock(){}, new Sleeper(){}, timeoutInSeconds, sleepTimeOut);
+    this(driver, new Clock(){}, new ParkingSleeper(), timeoutInSeconds, sleepTimeOut);
   }
 
   protected ImplicitlyWaitingWebDriver(final WebDriver driver, Clock clock, Sleeper sleeper, long timeoutInSeconds, long sleepTimeOut) {
     super(driver);
     this.timeout = timeoutInSeconds;
-    this.interval = sleepTimeOut;
+    this.pollingStrategy = new FixedIntervalPolling(sleepTimeOut);
     this.clock = clock;
     this.sleeper = sleeper;
     driver.manage().timeouts().implicitlyWait(0, TimeUnit.SECONDS);
   }
 
-  private TimeBasedTrier<Object> trier() {
-    return new TimeBasedTrier<>(timeout*1000, clock, sleeper, interval);
+  /**
+   * When enabled, an element that is not found at once is waited for in the browser by a single asynchronous
+   * script that watches DOM mutations, instead of polling with remote commands. Locators that can not be
+   * evaluated by a script (link text locators) are still polled. Enabling this mode sets the script timeout
+   * of the wrapped driver to exceed the wait timeout.
+   */
+  public void setBrowserSideWaiting(boolean browserSideWaiting) {
+    if (browserSideWaiting && !(getOriginal() instanceof JavascriptExecutor)) {
+      throw new IllegalStateException("Browser side waiting requires a driver that can execute scripts");
+    }
+    if (browserSideWaiting) {
+      updateScriptTimeout();
+    }
+    this.browserSideWaiting = browserSideWaiting;
+  }
+
+  /**
+   * When enabled, a waited findElement or click that fails at first waits for the page to become idle before polling:
+   * a single asynchronous script returns once the document is loaded, no fetch or XHR requests are in flight
+   * and no animation frames are pending. The script waits for 250 ms at most, then the call is polled as usual.
+   * Enabling this mode sets the script timeout of the wrapped driver to exceed the wait timeout.
+   */
+  public void setPageReadinessGate(boolean pageReadinessGate) {
+    if (pageReadinessGate && !(getOriginal() instanceof JavascriptExecutor)) {
+      throw new IllegalStateException("Page readiness gate requires a driver that can execute scripts");
+    }
+    if (pageReadinessGate) {
+      updateScriptTimeout();
+    }
+    this.pageReadinessGate = pageReadinessGate;
+  }
+
+  /**
+   * Sets the timeouts and intervals that override the defaults for some methods, locators and tags.
+   */
+  public void setWaitPolicy(WaitPolicy waitPolicy) {
+    this.waitPolicy = waitPolicy;
+    if (browserSideWaiting || pageReadinessGate) {
+      updateScriptTimeout();
+    }
+  }
+
+  // a script that waits in the browser should be stopped by the wait deadline, not by the script timeout
+  private void updateScriptTimeout() {
+    long longest = waitPolicy == null ? 0 : waitPolicy.maxTimeout();
+    if (longest <= timeout * 1000) {
+      getOriginal().manage().timeouts().setScriptTimeout(timeout + 1, TimeUnit.SECONDS);
+    } else {
+      getOriginal().manage().timeouts().setScriptTimeout(longest + 1000, TimeUnit.MILLISECONDS);
+    }
+  }
+
+  /**
+   * Sets the strategy that chooses pauses between attempts, a fixed interval given to the constructor is used by default.
+   */
+  public void setPollingStrategy(PollingStrategy pollingStrategy) {
+    this.pollingStrategy = pollingStrategy;
+  }
+
+  /**
+   * Sets the scheduler that times the pauses between attempts of asynchronous waits, it does not make any calls
+   * to the browser. A scheduler shared by all drivers is used by default.
+   */
+  public void setScheduler(ScheduledExecutorService scheduler) {
+    this.scheduler = scheduler;
+  }
+
+  /**
+   * Sets the executor that makes the attempts of asynchronous waits, the calls to the browser block its threads.
+   * By default a pool shared by all drivers is used, it adds threads as needed, so waits do not queue
+   * behind each other.
+   */
+  public void setExecutor(Executor executor) {
+    this.executor = executor;
+  }
+
+  /**
+   * Sets the classifier that decides which exceptions are worth waiting for, and which ones should be thrown at once.
+   */
+  public void setExceptionClassifier(ExceptionClassifier exceptionClassifier) {
+    this.exceptionClassifier = exceptionClassifier;
+  }
+
+  void setNanoTime(LongSupplier nanoTime) {
+    this.nanoTime = nanoTime;
+  }
+
+  /**
+   * Returns the time spent waiting, per method and per locator.
+   */
+  public WaitStatistics getStatistics() {
+    return statistics;
+  }
+
+  /**
+   * Opens a scope in which all waits made by the current thread share one deadline, the configured timeout
+   * from now, so a chain of nested calls fails no later than a single call would.
+   */
+  public WaitScope waitScope() {
+    return waitScope(timeout, TimeUnit.SECONDS);
+  }
+
+  public WaitScope waitScope(long duration, TimeUnit unit) {
+    WaitScope scope = new WaitScope(this, waitScope.get(), clock.laterBy(unit.toMillis(duration)));
+    waitScope.set(scope);
+    return scope;
+  }
+
+  void closeWaitScope(WaitScope scope) {
+    if (waitScope.get() != scope) {
+      throw new IllegalStateException("Wait scopes should be closed in the reverse order of opening");
+    }
+    if (scope.getEnclosing() == null) {
+      waitScope.remove();
+    } else {
+      waitScope.set(scope.getEnclosing());
+    }
+  }
+
+  private WaitPolicy.Timing timing(BiFunction<?, ?, ?> action, By locator) {
+    return waitPolicy == null ? null : waitPolicy.resolve(action.toString(), locator);
+  }
+
+  private long deadline(WaitPolicy.Timing timing, long start) {
+    long deadline = start + (timing != null ? timing.getTimeout() : timeout * 1000);
+    WaitScope scope = waitScope.get();
+    return scope == null ? deadline : Math.min(deadline, scope.getDeadline());
   }
 
-  private RuntimeException propagate(Throwable throwable) {
-    if (throwable instanceof RuntimeException) {
-      throw (RuntimeException) throwable;
+  /**
+   * Applies the action until it succeeds with a result that should not be retried, or the timeout expires.
+   * The first attempt is made right away, polling is set up only if it fails.
+   * When the timeout expires the last exception is thrown, or the last result is returned if there was no exception.
+   * Exceptions classified as fatal are thrown at once.
+   */
+  private <T, A, R> R waitFor(BiFunction<T, A, R> action, T target, A arg, Predicate<? super R> retryIf)
+    throws InterruptedException {
+    return waitFor(action, target, arg, null, retryIf);
+  }
+
+  /**
+   * @param origin the locator the target element was found by, if known, used to choose the timeout
+   */
+  private <T, A, R> R waitFor(BiFunction<T, A, R> action, T target, A arg, By origin, Predicate<? super R> retryIf)
+    throws InterruptedException {
+    RuntimeException failure = null;
+    R result = null;
+    int limitedFailures = 0;
+    long start = clock.now();
+    long startNanos = nanoTime.getAsLong();
+    try {
+      result = action.apply(target, arg);
+      if (!retryIf.test(result)) {
+        return result;
+      }
+    } catch (RuntimeException e) {
+      failure = e;
+      limitedFailures = checkRetryable(e, limitedFailures);
+    }
+
+    By locator = arg instanceof By ? (By) arg : null;
+    WaitPolicy.Timing timing = timing(action, locator != null ? locator : origin);
+    long finish = deadline(timing, start);
+    int retry = 0;
+    WaitStatistics.Outcome outcome = WaitStatistics.Outcome.FAILURE;
+    try {
+      // once the page is idle there is no point in pausing before the next attempt
+      boolean ready = pageReadinessGate && (action == FIND_ELEMENT || action == CLICK)
+        && PageReadiness.await((JavascriptExecutor) getOriginal(),
+          Math.max(0, Math.min(PAGE_READINESS_TIMEOUT, finish - clock.now())));
+      while (!clock.past(finish)) {
+        if (ready) {
+          ready = false;
+          ++retry;
+        } else {
+          sleeper.sleep(Math.min(nextInterval(timing, locator, ++retry), finish - clock.now()));
+        }
+        try {
+          result = action.apply(target, arg);
+          if (!retryIf.test(result)) {
+            pollingStrategy.succeeded(locator, clock.now() - start);
+            outcome = WaitStatistics.Outcome.SUCCESS;
+            return result;
+          }
+          failure = null;
+        } catch (RuntimeException e) {
+          failure = e;
+          limitedFailures = checkRetryable(e, limitedFailures);
+        }
+      }
+
+      outcome = WaitStatistics.Outcome.TIMEOUT;
+      if (failure != null) {
+        throw failure;
+      }
+      return result;
+    } finally {
+      statistics.record(action.toString(), locator, retry, outcome, nanoTime.getAsLong() - startNanos);
     }
-    if (throwable instanceof Error) {
-      throw (Error) throwable;
+  }
+
+  private long nextInterval(WaitPolicy.Timing timing, By locator, int retry) {
+    return timing != null ? timing.getInterval() : pollingStrategy.nextInterval(locator, retry);
+  }
+
+  /**
+   * Throws the failure if it should not be retried, returns the updated number of failures with a retry limit.
+   */
+  private int checkRetryable(RuntimeException failure, int limitedFailures) {
+    switch (exceptionClassifier.classify(failure)) {
+      case FATAL:
+        throw failure;
+      case LIMITED:
+        if (limitedFailures >= exceptionClassifier.retryLimit(failure)) {
+          throw failure;
+        }
+        return limitedFailures + 1;
+      default:
+        return limitedFailures;
     }
-    throw new RuntimeException(throwable);
+  }
+
+  private WebElement waitForElement(SearchContext context, WebElement root, By locator) throws InterruptedException {
+    ScriptLocator scriptLocator = browserSideWaiting ? ScriptLocator.of(locator) : null;
+    if (scriptLocator == null) {
+      return waitFor(FIND_ELEMENT, context, locator, NEVER);
+    }
+    long start = clock.now();
+    long startNanos = nanoTime.getAsLong();
+    try {
+      return context.findElement(locator);
+    } catch (NoSuchElementException e) {
+      checkRetryable(e, 0);
+      long remaining = Math.max(0, deadline(timing(FIND_ELEMENT, locator), start) - clock.now());
+      WebElement found;
+      WaitStatistics.Outcome outcome = WaitStatistics.Outcome.FAILURE;
+      try {
+        found = BrowserSideWait.findElement((JavascriptExecutor) getOriginal(), root, scriptLocator, remaining);
+        outcome = found != null ? WaitStatistics.Outcome.SUCCESS : WaitStatistics.Outcome.TIMEOUT;
+      } finally {
+        statistics.record(FIND_ELEMENT.toString(), locator, 1, outcome, nanoTime.getAsLong() - startNanos);
+      }
+      if (found == null) {
+        throw e;
+      }
+      return found;
+    }
+  }
+
+  private ScheduledExecutorService scheduler() {
+    return scheduler != null ? scheduler : SharedScheduler.INSTANCE;
+  }
+
+  private Executor executor() {
+    return executor != null ? executor : SharedExecutor.INSTANCE;
+  }
+
+  /**
+   * Runs the action like {@link #waitFor} does, but on the executor: pauses between attempts do not hold any thread.
+   * The deadline is taken from the calling thread, including its wait scope.
+   */
+  private <T, A, R> CompletableFuture<R> waitForAsync(BiFunction<T, A, R> action, T target, A arg, Predicate<? super R> retryIf) {
+    AsyncWait<T, A, R> wait = new AsyncWait<>(action, target, arg, retryIf);
+    wait.submit();
+    return wait.future;
+  }
+
+  private class AsyncWait<T, A, R> implements Runnable {
+
+    private final CompletableFuture<R> future = new CompletableFuture<>();
+    private final BiFunction<T, A, R> action;
+    private final T target;
+    private final A arg;
+    private final Predicate<? super R> retryIf;
+    private final By locator;
+    private final WaitPolicy.Timing timing;
+    private final long start = clock.now();
+    private final long startNanos = nanoTime.getAsLong();
+    private final long finish;
+    private int retry = 0;
+    private int limitedFailures = 0;
+
+    AsyncWait(BiFunction<T, A, R> action, T target, A arg, Predicate<? super R> retryIf) {
+      this.action = action;
+      this.target = target;
+      this.arg = arg;
+      this.retryIf = retryIf;
+      this.locator = arg instanceof By ? (By) arg : null;
+      this.timing = timing(action, locator);
+      this.finish = deadline(timing, start);
+    }
+
+    private void submit() {
+      try {
+        executor().execute(this);
+      } catch (RuntimeException e) {
+        future.completeExceptionally(e);
+      }
+    }
+
+    /**
+     * Completes the future with any throwable, so that it is never left incomplete.
+     */
+    @Override
+    public void run() {
+      try {
+        attempt();
+      } catch (Throwable e) {
+        future.completeExceptionally(e);
+      }
+    }
+
+    private void attempt() {
+      RuntimeException failure = null;
+      R result = null;
+      try {
+        result = action.apply(target, arg);
+        if (!retryIf.test(result)) {
+          if (retry > 0) {
+            pollingStrategy.succeeded(locator, clock.now() - start);
+            record(WaitStatistics.Outcome.SUCCESS);
+          }
+          future.complete(result);
+          return;
+        }
+      } catch (RuntimeException e) {
+        failure = e;
+        try {
+          limitedFailures = checkRetryable(e, limitedFailures);
+        } catch (RuntimeException fatal) {
+          if (retry > 0) {
+            record(WaitStatistics.Outcome.FAILURE);
+          }
+          future.completeExceptionally(fatal);
+          return;
+        }
+      }
+      if (clock.past(finish)) {
+        record(WaitStatistics.Outcome.TIMEOUT);
+        if (failure != null) {
+          future.completeExceptionally(failure);
+        } else {
+          future.complete(result);
+        }
+        return;
+      }
+      long pause = Math.min(nextInterval(timing, locator, ++retry), finish - clock.now());
+      scheduler().schedule(this::submit, pause, TimeUnit.MILLISECONDS);
+    }
+
+    private void record(WaitStatistics.Outcome outcome) {
+      statistics.record(action.toString(), locator, retry, outcome, nanoTime.getAsLong() - startNanos);
+    }
+  }
+
+  /**
+   * Waits for an element without blocking the calling thread. Async waits poll with the timing
+   * of the {@link WaitPolicy}, but do not use browser-side waiting or the page readiness gate.
+   */
+  public CompletableFuture<WebElement> findElementAsync(By locator) {
+    return waitForAsync(FIND_ELEMENT, getOriginal(), locator, NEVER)
+      .thenApply(found -> new ImplicitlyWaitingWebElement(found, this, locator).getActivated());
+  }
+
+  /**
+   * Waits for elements without blocking the calling thread, completes with an empty list if the wait ends
+   * with an exception, unless it is classified as fatal, like {@link #findElements(By)} does.
+   */
+  public CompletableFuture<List<WebElement>> findElementsAsync(By locator) {
+    return waitForAsync(FIND_ELEMENTS, getOriginal(), locator, EMPTY).handle((found, failure) -> {
+      if (failure == null) {
+        return wrapElements(found);
+      }
+      if (failure instanceof RuntimeException && exceptionClassifier.classify(failure) != ExceptionClassifier.Kind.FATAL) {
+        return new ArrayList<>();
+      }
+      throw new CompletionException(failure);
+    });
+  }
+
+  public CompletableFuture<Void> clickAsync(WebElement element) {
+    return waitForAsync(CLICK, unwrapElement(element), null, NEVER);
+  }
+
+  public CompletableFuture<Void> sendKeysAsync(WebElement element, CharSequence... keysToSend) {
+    return waitForAsync(SEND_KEYS, unwrapElement(element), keysToSend, NEVER);
+  }
+
+  private static WebElement unwrapElement(WebElement element) {
+    return element instanceof WrapsElement ? ((WrapsElement) element).getWrappedElement() : element;
   }
 
   @Override
   public WebElement findElement(By locator) {
     try {
-      return new ImplicitlyWaitingWebElement(trier().tryTo(getOriginal()::findElement, locator), this).getActivated();
+      return new ImplicitlyWaitingWebElement(waitForElement(getOriginal(), null, locator), this, locator).getActivated();
     } catch (InterruptedException e) {
       throw new RuntimeException(e);
-    } catch (LimitExceededException e) {
-      throw propagate(e.getCause());
     }
   }
 
   @Override
   public List<WebElement> findElements(By locator) {
     try {
-      return wrapElements(trier().tryTo(getOriginal()::findElements, locator));
+      return wrapElements(waitForElements(getOriginal(), locator));
     } catch (InterruptedException e) {
       throw new RuntimeException(e);
-    } catch (LimitExceededException e) {
+    }
+  }
+
+  /**
+   * Returns an empty list if the wait ends with an exception, unless it is classified as fatal.
+   */
+  private List<WebElement> waitForElements(SearchContext context, By locator) throws InterruptedException {
+    try {
+      return waitFor(FIND_ELEMENTS, context, locator, EMPTY);
+    } catch (RuntimeException e) {
+      if (exceptionClassifier.classify(e) == ExceptionClassifier.Kind.FATAL) {
+        throw e;
+      }
       return new ArrayList<>();
     }
   }
 
-  public class ImplicitlyWaitingWebElement extends DecoratedWebElement {
+  /**
+   * Waits for whichever of the locators matches first, all of them are checked on each attempt.
+   */
+  public WebElement findAny(By... locators) {
+    return findFirstMatching(new AnyOfLocators(Arrays.asList(locators), getOriginal() instanceof JavascriptExecutor))
+      .getElement();
+  }
+
+  /**
+   * Waits for whichever of the locators matches first and returns the found element with the key of the locator.
+   * Locators are checked in the iteration order of the map, so the earlier ones win if several match at once.
+   */
+  public <K> Match<K> findFirstMatching(Map<By, K> locators) {
+    Match<By> match = findFirstMatching(
+      new AnyOfLocators(new ArrayList<>(locators.keySet()), getOriginal() instanceof JavascriptExecutor));
+    return new Match<>(locators.get(match.getLocator()), match.getLocator(), match.getElement());
+  }
+
+  private Match<By> findFirstMatching(AnyOfLocators locators) {
+    Object[] found;
+    try {
+      found = waitFor(FIND_FIRST, getOriginal(), locators, Objects::isNull);
+    } catch (InterruptedException e) {
+      throw new RuntimeException(e);
+    }
+    if (found == null) {
+      throw new NoSuchElementException("Unable to locate an element by any of " + locators.getLocators());
+    }
+    By locator = locators.getLocators().get((Integer) found[0]);
+    WebElement element = new ImplicitlyWaitingWebElement((WebElement) found[1], this, locator).getActivated();
+    return new Match<>(locator, locator, element);
+  }
+
+  /**
+   * Waits until at least the given number of elements match the locator.
+   */
+  public List<WebElement> findAtLeast(By locator, int count) {
+    return waitForCount(ElementCountCondition.atLeast(locator, count));
+  }
+
+  /**
+   * Waits until exactly the given number of elements match the locator.
+   */
+  public List<WebElement> findExactly(By locator, int count) {
+    return waitForCount(ElementCountCondition.exactly(locator, count));
+  }
+
+  /**
+   * Waits until some elements match the locator and their number does not change for the given time,
+   * useful for lists that are filled in gradually.
+   */
+  public List<WebElement> findWhenStable(By locator, long stableTime, TimeUnit unit) {
+    return waitForCount(ElementCountCondition.stable(locator, unit.toMillis(stableTime), clock));
+  }
+
+  private List<WebElement> waitForCount(ElementCountCondition condition) {
+    condition.usingScripts(getOriginal() instanceof JavascriptExecutor);
+    List<WebElement> found;
+    try {
+      found = waitFor(CHECK_COUNT, getOriginal(), condition, Objects::isNull);
+    } catch (InterruptedException e) {
+      throw new RuntimeException(e);
+    }
+    if (found == null) {
+      throw new TimeoutException("Timed out waiting for " + condition);
+    }
+    return wrapElements(found);
+  }
+
+  public class ImplicitlyWaitingWebElement extends DecoratedWebElement implements WaitingWebElement {
+
+    private final By locator;
 
     public ImplicitlyWaitingWebElement(WebElement element, DecoratedWebDriver driver) {
+      this(element, driver, null);
+    }
+
+    /**
+     * @param locator the locator the element was found by, used to choose timeouts of the element methods
+     */
+    public ImplicitlyWaitingWebElement(WebElement element, DecoratedWebDriver driver, By locator) {
       super(element, driver);
+      this.locator = locator;
     }
 
     @Override
     public void click() {
       try {
-        trier().tryTo(getOriginal()::click);
+        waitFor(CLICK, getOriginal(), null, locator, NEVER);
       } catch (InterruptedException e) {
         throw new RuntimeException(e);
-      } catch (LimitExceededException e) {
-        throw propagate(e.getCause());
       }
     }
 
     @Override
     public void submit() {
       try {
-        trier().tryTo(getOriginal()::submit);
+        waitFor(SUBMIT, getOriginal(), null, locator, NEVER);
       } catch (InterruptedException e) {
         throw new RuntimeException(e);
-      } catch (LimitExceededException e) {
-        throw propagate(e.getCause());
       }
     }
 
     @Override
     public void sendKeys(CharSequence... keysToSend) {
       try {
-        trier().tryTo(() -> getOriginal().sendKeys(keysToSend));
+        waitFor(SEND_KEYS, getOriginal(), keysToSend, locator, NEVER);
       } catch (InterruptedException e) {
         throw new RuntimeException(e);
-      } catch (LimitExceededException e) {
-        throw propagate(e.getCause());
       }
     }
 
     @Override
     public void clear() {
       try {
-        trier().tryTo(getOriginal()::clear);
+        waitFor(CLEAR, getOriginal(), null, locator, NEVER);
       } catch (InterruptedException e) {
         throw new RuntimeException(e);
-      } catch (LimitExceededException e) {
-        throw propagate(e.getCause());
       }
     }
 
     @Override
     public boolean isSelected() {
       try {
-        return trier().ignoring((res) -> false).tryTo(getOriginal()::isSelected);
+        return waitFor(IS_SELECTED, getOriginal(), null, locator, NEVER);
       } catch (InterruptedException e) {
         throw new RuntimeException(e);
-      } catch (LimitExceededException e) {
-        throw propagate(e.getCause());
       }
     }
 
     @Override
     public boolean isEnabled() {
       try {
-        return trier().ignoring((res) -> false).tryTo(getOriginal()::isEnabled);
+        return waitFor(IS_ENABLED, getOriginal(), null, locator, NEVER);
       } catch (InterruptedException e) {
         throw new RuntimeException(e);
-      } catch (LimitExceededException e) {
-        throw propagate(e.getCause());
       }
     }
 
     @Override
     public WebElement findElement(By locator) {
       try {
-        WebElement found = trier().tryTo(getOriginal()::findElement, locator);
-        return new ImplicitlyWaitingWebElement(found, getTopmostDecorated()).getActivated();
+        WebElement found = waitForElement(getOriginal(), getOriginal(), locator);
+        return new ImplicitlyWaitingWebElement(found, getTopmostDecorated(), locator).getActivated();
       } catch (InterruptedException e) {
         throw new RuntimeException(e);
-      } catch (LimitExceededException e) {
-        throw propagate(e.getCause());
       }
     }
 
     @Override
     public List<WebElement> findElements(By locator) {
       try {
-        return wrapElements(trier().tryTo(getOriginal()::findElements, locator));
-      } catch (InterruptedException | LimitExceededException e) {
+        return wrapElements(waitForElements(getOriginal(), locator));
+      } catch (InterruptedException e) {
         return new ArrayList<>();
       }
     }
@@ -203,13 +762,51 @@ public class ImplicitlyWaitingWebDriver extends DecoratedWebDriver {
     @Override
     public Coordinates getCoordinates() {
       try {
-        return trier().tryTo(((Locatable) getOriginal())::getCoordinates);
+        return waitFor(GET_COORDINATES, getOriginal(), null, locator, NEVER);
       } catch (InterruptedException e) {
         throw new RuntimeException(e);
-      } catch (LimitExceededException e) {
-        throw propagate(e.getCause());
       }
     }
+
+    @Override
+    public String waitForText(Pattern pattern) {
+      Predicate<Object> condition = text -> text != null && pattern.matcher(text.toString()).find();
+      return (String) waitForCondition(WAIT_FOR_TEXT, ElementProbe.text(executor()), condition,
+        "text matching %s", pattern);
+    }
+
+    @Override
+    public String waitForAttribute(String name, String expectedValue) {
+      Predicate<Object> condition = value -> Objects.equals(value, expectedValue);
+      return (String) waitForCondition(WAIT_FOR_ATTRIBUTE, ElementProbe.attribute(executor(), name), condition,
+        "attribute %s to be %s", name, expectedValue);
+    }
+
+    @Override
+    public void waitUntilDisplayed() {
+      waitForCondition(WAIT_UNTIL_DISPLAYED, ElementProbe.displayed(executor()), Boolean.TRUE::equals,
+        "element to be displayed");
+    }
+
+    private Object waitForCondition(BiFunction<WebElement, ElementProbe, Object> action, ElementProbe probe,
+                                    Predicate<Object> condition, String description, Object... args) {
+      Object value;
+      try {
+        value = waitFor(action, getOriginal(), probe, locator, condition.negate());
+      } catch (InterruptedException e) {
+        throw new RuntimeException(e);
+      }
+      if (!condition.test(value)) {
+        throw new TimeoutException(
+          "Timed out waiting for " + String.format(description, args) + ", last value: " + value);
+      }
+      return value;
+    }
+
+    private JavascriptExecutor executor() {
+      WebDriver driver = ImplicitlyWaitingWebDriver.this.getOriginal();
+      return driver instanceof JavascriptExecutor ? (JavascriptExecutor) driver : null;
+    }
   }
 
   public class ImplicitlyWaitingTargetLocator extends DecoratedTargetLocator {
@@ -221,35 +818,29 @@ public class ImplicitlyWaitingWebDriver extends DecoratedWebDriver {
     @Override
     public Alert alert() {
       try {
-        return new DecoratedAlert(trier().tryTo(getOriginal()::alert), getTopmostDecorated()).getActivated();
+        return new DecoratedAlert(waitFor(ALERT, getOriginal(), null, NEVER), getTopmostDecorated()).getActivated();
       } catch (InterruptedException e) {
         throw new RuntimeException(e);
-      } catch (LimitExceededException e) {
-        throw propagate(e.getCause());
       }
     }
 
     @Override
     public WebDriver frame(final int index) {
       try {
-        trier().tryTo((Consumer<Integer>) getOriginal()::frame, index);
+        waitFor(FRAME_BY_INDEX, getOriginal(), index, NEVER);
         return getTopmostDecorated().getActivated();
       } catch (InterruptedException e) {
         throw new RuntimeException(e);
-      } catch (LimitExceededException e) {
-        throw propagate(e.getCause());
       }
     }
 
     @Override
     public WebDriver frame(final String idOrName) {
       try {
-        trier().tryTo((Consumer<String>) getOriginal()::frame, idOrName);
+        waitFor(FRAME_BY_NAME, getOriginal(), idOrName, NEVER);
         return getTopmostDecorated().getActivated();
       } catch (InterruptedException e) {
         throw new RuntimeException(e);
-      } catch (LimitExceededException e) {
-        throw propagate(e.getCause());
       }
     }
   }
@@ -0,0 +1,53 @@
+/*
+ * Copyright 2013 Alexei Barantsev
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package ru.stqa.selenium.wait;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.WebElement;
+
+/**
+ * An element found by one of several locators, together with the key associated with that locator.
+ */
+public final class Match<K> {
+
+  private final K key;
+  private final By locator;
+  private final WebElement element;
+
+  Match(K key, By locator, WebElement element) {
+    this.key = key;
+    this.locator = locator;
+    this.element = element;
+  }
+
+  public K getKey() {
+    return key;
+  }
+
+  public By getLocator() {
+    return locator;
+  }
+
+  public WebElement getElement() {
+    return element;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("Match {%s -> %s: %s}", locator, key, element);
+  }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2013 Alexei Barantsev
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package ru.stqa.selenium.wait;
+
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriverException;
+
+/**
+ * Waits in the browser until the page is idle: the document is loaded, no fetch or XHR requests are in flight
+ * and no animation frames are pending. The counters are injected into the page on the first check,
+ * so requests started before that are not taken into account.
+ */
+final class PageReadiness {
+
+  private static final String WAIT_FOR_IDLE =
+    "var timeout = arguments[0], done = arguments[arguments.length - 1];" +
+    "var c = window.__implicitWaitCounters;" +
+    "if (!c) {" +
+    "  c = window.__implicitWaitCounters = {requests: 0, frames: {}, pendingFrames: 0};" +
+    "  if (window.fetch) {" +
+    "    var fetch = window.fetch;" +
+    "    window.fetch = function() {" +
+    "      c.requests++;" +
+    "      var settle = function() { c.requests--; };" +
+    "      return fetch.apply(this, arguments).then(function(r) { settle(); return r; }, function(e) { settle(); throw e; });" +
+    "    };" +
+    "  }" +
+    "  if (window.XMLHttpRequest) {" +
+    "    var send = XMLHttpRequest.prototype.send;" +
+    "    XMLHttpRequest.prototype.send = function() {" +
+    "      c.requests++;" +
+    "      this.addEventListener('loadend', function() { c.requests--; });" +
+    "      return send.apply(this, arguments);" +
+    "    };" +
+    "  }" +
+    "  if (window.requestAnimationFrame) {" +
+    "    var raf = window.requestAnimationFrame, caf = window.cancelAnimationFrame;" +
+    "    window.requestAnimationFrame = function(callback) {" +
+    "      var id = raf.call(window, function(time) {" +
+    "        if (c.frames[id]) { delete c.frames[id]; c.pendingFrames--; }" +
+    "        callback(time);" +
+    "      });" +
+    "      c.frames[id] = true; c.pendingFrames++;" +
+    "      return id;" +
+    "    };" +
+    "    window.cancelAnimationFrame = function(id) {" +
+    "      if (c.frames[id]) { delete c.frames[id]; c.pendingFrames--; }" +
+    "      return caf.call(window, id);" +
+    "    };" +
+    "  }" +
+    "}" +
+    "var started = Date.now();" +
+    "(function check() {" +
+    "  if (document.readyState === 'complete' && c.requests <= 0 && c.pendingFrames <= 0) { done(true); return; }" +
+    "  if (Date.now() - started >= timeout) { done(false); return; }" +
+    "  setTimeout(check, 25);" +
+    "})();";
+
+  private PageReadiness() {}
+
+  /**
+   * Returns true if the page became idle within the timeout. The check is only an optimization,
+   * so script failures are reported as a page that is not idle rather than thrown.
+   */
+  static boolean await(JavascriptExecutor executor, long timeoutInMillis) {
+    try {
+      return Boolean.TRUE.equals(executor.executeAsyncScript(WAIT_FOR_IDLE, timeoutInMillis));
+    } catch (WebDriverException e) {
+      return false;
+    }
+  }
+}
@@ -0,0 +1,40 @@
+/*
+ * Copyright 2013 Alexei Barantsev
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package ru.stqa.selenium.wait;
+
+import org.openqa.selenium.By;
+
+/**
+ * Decides how long to sleep between attempts of a waited call.
+ */
+public interface PollingStrategy {
+
+  /**
+   * @param locator the locator of an element lookup, or null for other calls
+   * @param retry the number of the retry that follows the sleep, starting with 1
+   * @return the pause in milliseconds
+   */
+  long nextInterval(By locator, int retry);
+
+  /**
+   * Notifies the strategy that a call succeeded after some retries.
+   *
+   * @param locator the locator of an element lookup, or null for other calls
+   * @param waited milliseconds between the first failed attempt and the successful one
+   */
+  default void succeeded(By locator, long waited) {}
+}
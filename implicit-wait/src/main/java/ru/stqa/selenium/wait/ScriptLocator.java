@@ -0,0 +1,95 @@
+/*
+ * Copyright 2013 Alexei Barantsev
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package ru.stqa.selenium.wait;
+
+import org.openqa.selenium.By;
+
+/**
+ * A locator translated to a CSS selector or an XPath expression that can be evaluated by a script in the browser.
+ */
+final class ScriptLocator {
+
+  static final String CSS = "css";
+  static final String XPATH = "xpath";
+
+  /**
+   * Script function that finds all elements matching a locator, takes a root node (or null for the document),
+   * the strategy and the expression.
+   */
+  static final String FIND_ALL =
+    "function findAll(root, strategy, expression) {" +
+    "  root = root || document;" +
+    "  if (strategy === 'css') { return Array.prototype.slice.call(root.querySelectorAll(expression)); }" +
+    "  var result = document.evaluate(expression, root, null, XPathResult.ORDERED_NODE_SNAPSHOT_TYPE, null);" +
+    "  var found = [];" +
+    "  for (var i = 0; i < result.snapshotLength; i++) {" +
+    "    if (result.snapshotItem(i).nodeType === 1) { found.push(result.snapshotItem(i)); }" +
+    "  }" +
+    "  return found;" +
+    "}";
+
+  private final String strategy;
+  private final String expression;
+
+  private ScriptLocator(String strategy, String expression) {
+    this.strategy = strategy;
+    this.expression = expression;
+  }
+
+  String getStrategy() {
+    return strategy;
+  }
+
+  String getExpression() {
+    return expression;
+  }
+
+  /**
+   * Returns null for locators that can not be translated, like link text locators.
+   */
+  static ScriptLocator of(By locator) {
+    if (locator instanceof By.ByCssSelector) {
+      return new ScriptLocator(CSS, valueOf(locator));
+    }
+    if (locator instanceof By.ByXPath) {
+      return new ScriptLocator(XPATH, valueOf(locator));
+    }
+    if (locator instanceof By.ById) {
+      return new ScriptLocator(CSS, "[id=" + quote(valueOf(locator)) + "]");
+    }
+    if (locator instanceof By.ByName) {
+      return new ScriptLocator(CSS, "[name=" + quote(valueOf(locator)) + "]");
+    }
+    if (locator instanceof By.ByClassName) {
+      return new ScriptLocator(CSS, "[class~=" + quote(valueOf(locator)) + "]");
+    }
+    if (locator instanceof By.ByTagName) {
+      return new ScriptLocator(CSS, valueOf(locator));
+    }
+    return null;
+  }
+
+  // By subclasses keep their values private, but all of them print as "By.strategy: value"
+  private static String valueOf(By locator) {
+    String description = locator.toString();
+    return description.substring(description.indexOf(": ") + 2);
+  }
+
+  private static String quote(String value) {
+    return "\"" + value.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+  }
+}
@@ -0,0 +1,205 @@
+/*
+ * Copyright 2013 Alexei Barantsev
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package ru.stqa.selenium.wait;
+
+import org.openqa.selenium.By;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Timeouts and polling intervals that override the defaults of the implicitly waiting driver for some calls.
+ * Example of use:
+ * <code>new WaitPolicy()<br>
+ *   .forMethod("click", 2000, 50, TimeUnit.MILLISECONDS)<br>
+ *   .forLocator("report-widget", 60000, 1000, TimeUnit.MILLISECONDS)<br>
+ *   .forTag("iframe", 30000, 500, TimeUnit.MILLISECONDS);</code>
+ * Locator patterns are matched against the string form of locators, tags are inferred from the locators
+ * (tag name locators, or the last step of CSS selectors and XPath expressions when it names a tag). Element methods are matched by
+ * the locator the element was found by. A locator pattern takes precedence over a tag, and a tag over a method name;
+ * among patterns the first added wins.
+ * The rules are compiled into hash lookups on first use, and the result for each locator is cached,
+ * so a call is resolved with a couple of map lookups.
+ */
+public class WaitPolicy {
+
+  private static final int MAX_CACHED_LOCATORS = 10000;
+  private static final Pattern LEADING_TAG = Pattern.compile("^([a-zA-Z][\\w-]*)");
+  private static final Pattern CSS_COMBINATORS = Pattern.compile("\\s*[\\s>+~]\\s*");
+  private static final Pattern XPATH_PREDICATES = Pattern.compile("\\[[^\\]]*\\]");
+
+  private final Map<String, Timing> methods = new HashMap<>();
+  private final Map<String, Timing> tags = new HashMap<>();
+  private final List<Pattern> patterns = new ArrayList<>();
+  private final List<Timing> patternTimings = new ArrayList<>();
+
+  private volatile Compiled compiled;
+
+  public synchronized WaitPolicy forMethod(String method, long timeout, long interval, TimeUnit unit) {
+    methods.put(method, new Timing(unit.toMillis(timeout), unit.toMillis(interval)));
+    compiled = null;
+    return this;
+  }
+
+  public synchronized WaitPolicy forLocator(String pattern, long timeout, long interval, TimeUnit unit) {
+    patterns.add(Pattern.compile(pattern));
+    patternTimings.add(new Timing(unit.toMillis(timeout), unit.toMillis(interval)));
+    compiled = null;
+    return this;
+  }
+
+  public synchronized WaitPolicy forTag(String tag, long timeout, long interval, TimeUnit unit) {
+    tags.put(tag.toLowerCase(), new Timing(unit.toMillis(timeout), unit.toMillis(interval)));
+    compiled = null;
+    return this;
+  }
+
+  /**
+   * Returns the timing for a call, or null if the defaults apply.
+   *
+   * @param locator the locator of the call or of the element it is made on, may be null
+   */
+  Timing resolve(String method, By locator) {
+    Compiled current = compiled;
+    if (current == null) {
+      current = compile();
+    }
+    if (locator != null) {
+      Timing byLocator = current.forLocator(locator);
+      if (byLocator != Timing.NONE) {
+        return byLocator;
+      }
+    }
+    return current.methods.get(method);
+  }
+
+  /**
+   * Returns the longest timeout in milliseconds among the rules, or 0 if there are none.
+   */
+  synchronized long maxTimeout() {
+    long max = 0;
+    for (Timing timing : methods.values()) {
+      max = Math.max(max, timing.timeout);
+    }
+    for (Timing timing : tags.values()) {
+      max = Math.max(max, timing.timeout);
+    }
+    for (Timing timing : patternTimings) {
+      max = Math.max(max, timing.timeout);
+    }
+    return max;
+  }
+
+  private synchronized Compiled compile() {
+    if (compiled == null) {
+      compiled = new Compiled(new HashMap<>(methods), new HashMap<>(tags),
+        patterns.toArray(new Pattern[0]), patternTimings.toArray(new Timing[0]));
+    }
+    return compiled;
+  }
+
+  private static final class Compiled {
+
+    private final Map<String, Timing> methods;
+    private final Map<String, Timing> tags;
+    private final Pattern[] patterns;
+    private final Timing[] patternTimings;
+    private final ConcurrentHashMap<By, Timing> byLocator = new ConcurrentHashMap<>();
+
+    Compiled(Map<String, Timing> methods, Map<String, Timing> tags, Pattern[] patterns, Timing[] patternTimings) {
+      this.methods = methods;
+      this.tags = tags;
+      this.patterns = patterns;
+      this.patternTimings = patternTimings;
+    }
+
+    Timing forLocator(By locator) {
+      if (patterns.length == 0 && tags.isEmpty()) {
+        return Timing.NONE;
+      }
+      Timing cached = byLocator.get(locator);
+      if (cached == null) {
+        cached = match(locator);
+        if (byLocator.size() >= MAX_CACHED_LOCATORS) {
+          byLocator.clear();
+        }
+        byLocator.put(locator, cached);
+      }
+      return cached;
+    }
+
+    private Timing match(By locator) {
+      String description = locator.toString();
+      for (int i = 0; i < patterns.length; i++) {
+        if (patterns[i].matcher(description).find()) {
+          return patternTimings[i];
+        }
+      }
+      String tag = tagOf(locator);
+      Timing byTag = tag == null ? null : tags.get(tag);
+      return byTag != null ? byTag : Timing.NONE;
+    }
+  }
+
+  private static String tagOf(By locator) {
+    ScriptLocator scriptLocator = ScriptLocator.of(locator);
+    if (scriptLocator == null) {
+      return null;
+    }
+    String expression = scriptLocator.getExpression().trim();
+    String lastStep;
+    if (ScriptLocator.CSS.equals(scriptLocator.getStrategy())) {
+      String[] steps = CSS_COMBINATORS.split(expression);
+      lastStep = steps.length == 0 ? "" : steps[steps.length - 1];
+    } else {
+      String path = XPATH_PREDICATES.matcher(expression).replaceAll("");
+      lastStep = path.substring(path.lastIndexOf('/') + 1);
+    }
+    Matcher matcher = LEADING_TAG.matcher(lastStep);
+    return matcher.find() ? matcher.group(1).toLowerCase() : null;
+  }
+
+  /**
+   * A timeout and a polling interval, both in milliseconds.
+   */
+  static final class Timing {
+
+    static final Timing NONE = new Timing(-1, -1);
+
+    private final long timeout;
+    private final long interval;
+
+    Timing(long timeout, long interval) {
+      this.timeout = timeout;
+      this.interval = interval;
+    }
+
+    long getTimeout() {
+      return timeout;
+    }
+
+    long getInterval() {
+      return interval;
+    }
+  }
+}
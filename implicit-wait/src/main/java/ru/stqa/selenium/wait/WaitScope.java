@@ -0,0 +1,51 @@
+/*
+ * Copyright 2013 Alexei Barantsev
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package ru.stqa.selenium.wait;
+
+/**
+ * A deadline shared by all implicit waits made in the current thread while the scope is open.
+ * Example of use:
+ * <code>try (WaitScope scope = waitingDriver.waitScope()) {<br>
+ *   driver.findElement(By.id("menu")).findElement(By.id("item")).click();<br>
+ * }</code>
+ * Nested scopes can shorten the deadline, but can not extend it.
+ */
+public final class WaitScope implements AutoCloseable {
+
+  private final ImplicitlyWaitingWebDriver driver;
+  private final WaitScope enclosing;
+  private final long deadline;
+
+  WaitScope(ImplicitlyWaitingWebDriver driver, WaitScope enclosing, long deadline) {
+    this.driver = driver;
+    this.enclosing = enclosing;
+    this.deadline = enclosing == null ? deadline : Math.min(deadline, enclosing.deadline);
+  }
+
+  WaitScope getEnclosing() {
+    return enclosing;
+  }
+
+  long getDeadline() {
+    return deadline;
+  }
+
+  @Override
+  public void close() {
+    driver.closeWaitScope(this);
+  }
+}
@@ -0,0 +1,188 @@
+/*
+ * Copyright 2013 Alexei Barantsev
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package ru.stqa.selenium.wait;
+
+import org.openqa.selenium.By;
+import ru.stqa.selenium.decorated.metrics.LatencyHistogram;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Accounts for the time spent in implicit waits per method and per locator, so that the locators and pages
+ * that dominate wait time can be found. Calls that succeed at the first attempt do not wait and are not recorded.
+ * Only the most recently used locators are kept, so that generated locators do not grow the statistics without bound.
+ */
+public class WaitStatistics {
+
+  private static final int DEFAULT_MAX_LOCATORS = 1000;
+
+  enum Outcome { SUCCESS, TIMEOUT, FAILURE }
+
+  private final ConcurrentHashMap<String, Entry> byMethod = new ConcurrentHashMap<>();
+  private final Map<By, Entry> byLocator;
+
+  public WaitStatistics() {
+    this(DEFAULT_MAX_LOCATORS);
+  }
+
+  /**
+   * @param maxLocators how many locators keep their statistics, the least recently used ones are dropped first
+   */
+  public WaitStatistics(final int maxLocators) {
+    this.byLocator = new LinkedHashMap<By, Entry>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<By, Entry> eldest) {
+        return size() > maxLocators;
+      }
+    };
+  }
+
+  void record(String method, By locator, int polls, Outcome outcome, long nanos) {
+    entry(byMethod, method).record(polls, outcome, nanos);
+    if (locator != null) {
+      Entry entry;
+      synchronized (byLocator) {
+        entry = byLocator.computeIfAbsent(locator, k -> new Entry());
+      }
+      entry.record(polls, outcome, nanos);
+    }
+  }
+
+  private static <K> Entry entry(ConcurrentHashMap<K, Entry> entries, K key) {
+    Entry existing = entries.get(key);
+    return existing != null ? existing : entries.computeIfAbsent(key, k -> new Entry());
+  }
+
+  public Map<String, Snapshot> byMethod() {
+    return snapshot(byMethod);
+  }
+
+  public Map<By, Snapshot> byLocator() {
+    synchronized (byLocator) {
+      return snapshot(byLocator);
+    }
+  }
+
+  private static <K> Map<K, Snapshot> snapshot(Map<K, Entry> entries) {
+    Map<K, Snapshot> result = new LinkedHashMap<>();
+    entries.forEach((key, entry) -> result.put(key, entry.snapshot()));
+    return Collections.unmodifiableMap(result);
+  }
+
+  public void reset() {
+    byMethod.clear();
+    synchronized (byLocator) {
+      byLocator.clear();
+    }
+  }
+
+  private static class Entry {
+
+    private final LongAdder waits = new LongAdder();
+    private final LongAdder polls = new LongAdder();
+    private final LongAdder successes = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LatencyHistogram waitTime = new LatencyHistogram();
+
+    void record(int polls, Outcome outcome, long nanos) {
+      waits.increment();
+      this.polls.add(polls);
+      switch (outcome) {
+        case SUCCESS:
+          successes.increment();
+          break;
+        case TIMEOUT:
+          timeouts.increment();
+          break;
+        default:
+          failures.increment();
+      }
+      waitTime.record(nanos);
+    }
+
+    Snapshot snapshot() {
+      return new Snapshot(waits.sum(), polls.sum(), successes.sum(), timeouts.sum(), failures.sum(), waitTime.snapshot());
+    }
+  }
+
+  public static class Snapshot {
+
+    private final long waits;
+    private final long polls;
+    private final long successes;
+    private final long timeouts;
+    private final long failures;
+    private final LatencyHistogram.Snapshot waitTime;
+
+    Snapshot(long waits, long polls, long successes, long timeouts, long failures, LatencyHistogram.Snapshot waitTime) {
+      this.waits = waits;
+      this.polls = polls;
+      this.successes = successes;
+      this.timeouts = timeouts;
+      this.failures = failures;
+      this.waitTime = waitTime;
+    }
+
+    /**
+     * Number of calls that failed at the first attempt and had to wait.
+     */
+    public long getWaits() {
+      return waits;
+    }
+
+    /**
+     * Number of attempts made after the first one.
+     */
+    public long getPolls() {
+      return polls;
+    }
+
+    public long getSuccesses() {
+      return successes;
+    }
+
+    public long getTimeouts() {
+      return timeouts;
+    }
+
+    /**
+     * Number of waits interrupted by an exception that is not worth waiting for.
+     */
+    public long getFailures() {
+      return failures;
+    }
+
+    public long getTotalWaitNanos() {
+      return waitTime.getTotalNanos();
+    }
+
+    public LatencyHistogram.Snapshot getWaitTime() {
+      return waitTime;
+    }
+
+    @Override
+    public String toString() {
+      return String.format("waits=%d, polls=%d, successes=%d, timeouts=%d, failures=%d, wait time {%s}",
+        waits, polls, successes, timeouts, failures, waitTime);
+    }
+  }
+}
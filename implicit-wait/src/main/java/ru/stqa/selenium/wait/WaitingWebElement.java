@@ -0,0 +1,42 @@
+/*
+ * Copyright 2013 Alexei Barantsev
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package ru.stqa.selenium.wait;
+
+import java.util.regex.Pattern;
+
+/**
+ * Conditions an implicitly waiting element can wait for. Elements returned by the implicitly waiting driver
+ * implement this interface, each attempt reads the state of the element in a single script.
+ * If the condition is not met in time, {@link org.openqa.selenium.TimeoutException} is thrown.
+ */
+public interface WaitingWebElement {
+
+  /**
+   * Waits until the visible text of the element contains a match of the pattern, returns the text.
+   */
+  String waitForText(Pattern pattern);
+
+  /**
+   * Waits until the attribute of the element has the expected value, null stands for a missing attribute.
+   */
+  String waitForAttribute(String name, String expectedValue);
+
+  /**
+   * Waits until the element is displayed.
+   */
+  void waitUntilDisplayed();
+}
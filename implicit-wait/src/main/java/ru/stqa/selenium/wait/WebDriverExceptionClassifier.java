@@ -0,0 +1,89 @@
+/*
+ * Copyright 2013 Alexei Barantsev
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package ru.stqa.selenium.wait;
+
+import org.openqa.selenium.*;
+import org.openqa.selenium.remote.UnreachableBrowserException;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Classifies exceptions by their class, the most specific configured class wins.
+ * By default WebDriver exceptions are retryable, except for the ones that signal an invalid command
+ * or a lost session or browser, which are fatal, and stale element references, which are retried twice.
+ * Other runtime exceptions are retryable, as all exceptions were retried before the classification was introduced,
+ * use {@code fatal(RuntimeException.class)} to fail at once on them.
+ */
+public class WebDriverExceptionClassifier implements ExceptionClassifier {
+
+  private final Map<Class<?>, Kind> kinds = new HashMap<>();
+  private final Map<Class<?>, Integer> limits = new HashMap<>();
+
+  public WebDriverExceptionClassifier() {
+    kinds.put(RuntimeException.class, Kind.RETRYABLE);
+    kinds.put(WebDriverException.class, Kind.RETRYABLE);
+    fatal(InvalidSelectorException.class, InvalidArgumentException.class, UnsupportedCommandException.class,
+      NoSuchSessionException.class, SessionNotCreatedException.class, UnreachableBrowserException.class,
+      NoSuchWindowException.class, UnhandledAlertException.class);
+    limited(StaleElementReferenceException.class, 2);
+  }
+
+  @SafeVarargs
+  public final WebDriverExceptionClassifier retryable(Class<? extends Throwable>... exceptions) {
+    for (Class<? extends Throwable> exception : exceptions) {
+      kinds.put(exception, Kind.RETRYABLE);
+    }
+    return this;
+  }
+
+  @SafeVarargs
+  public final WebDriverExceptionClassifier fatal(Class<? extends Throwable>... exceptions) {
+    for (Class<? extends Throwable> exception : exceptions) {
+      kinds.put(exception, Kind.FATAL);
+    }
+    return this;
+  }
+
+  public WebDriverExceptionClassifier limited(Class<? extends Throwable> exception, int retryLimit) {
+    kinds.put(exception, Kind.LIMITED);
+    limits.put(exception, retryLimit);
+    return this;
+  }
+
+  @Override
+  public Kind classify(Throwable failure) {
+    for (Class<?> c = failure.getClass(); c != null; c = c.getSuperclass()) {
+      Kind kind = kinds.get(c);
+      if (kind != null) {
+        return kind;
+      }
+    }
+    return Kind.FATAL;
+  }
+
+  @Override
+  public int retryLimit(Throwable failure) {
+    for (Class<?> c = failure.getClass(); c != null; c = c.getSuperclass()) {
+      Integer limit = limits.get(c);
+      if (limit != null) {
+        return limit;
+      }
+    }
+    return 0;
+  }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2013 Alexei Barantsev
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package ru.stqa.selenium.wait;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openqa.selenium.By;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+
+import java.lang.reflect.Proxy;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the overhead of the implicitly waiting decorator when the first attempt succeeds.
+ * Run with <code>main</code> from the test classpath.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ImplicitlyWaitingWebDriverBenchmark {
+
+  private static final By LOCATOR = By.id("foo");
+
+  private WebDriver driver;
+  private WebElement element;
+
+  @Setup
+  public void setUp() {
+    WebElement stubElement = stub(WebElement.class, null);
+    WebDriver stubDriver = stub(WebDriver.class, stubElement);
+    driver = new ImplicitlyWaitingWebDriver(stubDriver).getActivated();
+    element = driver.findElement(LOCATOR);
+  }
+
+  @Benchmark
+  public WebElement findElement() {
+    return driver.findElement(LOCATOR);
+  }
+
+  @Benchmark
+  public void click() {
+    element.click();
+  }
+
+  @Benchmark
+  public boolean isEnabled() {
+    return element.isEnabled();
+  }
+
+  /**
+   * A stub that returns the given element for findElement, nested stubs for other interface results
+   * and default values otherwise.
+   */
+  @SuppressWarnings("unchecked")
+  private static <T> T stub(Class<T> type, WebElement element) {
+    return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+      Class<?> returnType = method.getReturnType();
+      if (method.getName().equals("findElement")) {
+        return element;
+      }
+      if (returnType == boolean.class) {
+        return true;
+      }
+      if (returnType == int.class) {
+        return System.identityHashCode(proxy);
+      }
+      if (returnType == String.class) {
+        return type.getSimpleName();
+      }
+      if (returnType.isInterface() && returnType.getName().startsWith("org.openqa.selenium")) {
+        return stub(returnType, element);
+      }
+      return null;
+    });
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder().include(ImplicitlyWaitingWebDriverBenchmark.class.getSimpleName()).build()).run();
+  }
+}
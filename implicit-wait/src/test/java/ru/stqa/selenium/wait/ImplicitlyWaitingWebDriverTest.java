@@ -23,13 +23,23 @@ import org.openqa.selenium.*;
 import org.openqa.selenium.interactions.*;
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
 
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.CoreMatchers.equalTo;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.lessThan;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 
 class ImplicitlyWaitingWebDriverTest {
@@ -47,7 +57,7 @@ class ImplicitlyWaitingWebDriverTest {
 
   private WebDriver getMockedDriver() {
     final WebDriver mockedDriver = mock(WebDriver.class,
-        withSettings().extraInterfaces(HasInputDevices.class, Interactive.class));
+        withSettings().extraInterfaces(HasInputDevices.class, Interactive.class, JavascriptExecutor.class));
     final WebDriver.Options mockedOptions = mock(WebDriver.Options.class);
     final WebDriver.Timeouts mockedTimeouts = mock(WebDriver.Timeouts.class);
     when(mockedDriver.manage()).thenReturn(mockedOptions);
@@ -113,6 +123,31 @@ class ImplicitlyWaitingWebDriverTest {
     assertThat(elements.size(), is(0));
   }
 
+  @Test
+  void findElementsShouldReturnEmptyListIfTheLastAttemptFails() {
+    when(mockedDriver.findElements(By.name("foo")))
+        .thenThrow(new WebDriverException("Failed"));
+
+    List<WebElement> elements = driver.findElements(By.name("foo"));
+
+    assertThat(clock.now(), is(1000L));
+    assertThat(elements.size(), is(0));
+  }
+
+  @Test
+  void timeoutShouldIncludeTheFirstAttempt() {
+    when(mockedDriver.findElements(By.name("foo"))).thenAnswer(invocation -> {
+      clock.sleep(300);
+      return new ArrayList<>();
+    });
+
+    List<WebElement> elements = driver.findElements(By.name("foo"));
+
+    assertThat(clock.now(), is(1100L));
+    verify(mockedDriver, times(3)).findElements(By.name("foo"));
+    assertThat(elements.size(), is(0));
+  }
+
   @Test
   void clickShouldImplicitlyWaitForTheElementToBeVisible() {
     final WebElement mockedElement = mock(WebElement.class);
@@ -686,4 +721,680 @@ class ImplicitlyWaitingWebDriverTest {
     verify(mockedDriver, times(1)).switchTo();
     verify(mockedSwitch, times(11)).frame("myname");
   }
+
+  @Test
+  void browserSideWaitingShouldWaitForAnElementInASingleScript() {
+    final WebElement mockedElement = mock(WebElement.class);
+    ImplicitlyWaitingWebDriver waitingDriver = new ImplicitlyWaitingWebDriver(mockedDriver, clock, clock, 1, 100);
+    waitingDriver.setBrowserSideWaiting(true);
+
+    when(mockedDriver.findElement(By.id("foo")))
+        .thenThrow(NoSuchElementException.class);
+    when(((JavascriptExecutor) mockedDriver).executeAsyncScript(
+        anyString(), isNull(), eq("css"), eq("[id=\"foo\"]"), eq(1000L)))
+        .thenReturn(mockedElement);
+
+    WebElement element = waitingDriver.getActivated().findElement(By.id("foo"));
+
+    assertThat(clock.now(), is(0L));
+    assertThat(element, equalTo(mockedElement));
+    verify(mockedDriver, times(1)).findElement(By.id("foo"));
+    verify(mockedDriver.manage().timeouts()).setScriptTimeout(2, TimeUnit.SECONDS);
+  }
+
+  @Test
+  void browserSideWaitingShouldThrowIfElementIsNotFound() {
+    ImplicitlyWaitingWebDriver waitingDriver = new ImplicitlyWaitingWebDriver(mockedDriver, clock, clock, 1, 100);
+    waitingDriver.setBrowserSideWaiting(true);
+
+    when(mockedDriver.findElement(By.xpath("//foo")))
+        .thenThrow(NoSuchElementException.class);
+
+    assertThrows(NoSuchElementException.class, () -> waitingDriver.getActivated().findElement(By.xpath("//foo")));
+
+    verify(mockedDriver, times(1)).findElement(By.xpath("//foo"));
+    verify((JavascriptExecutor) mockedDriver, times(1)).executeAsyncScript(
+        anyString(), isNull(), eq("xpath"), eq("//foo"), eq(1000L));
+  }
+
+  @Test
+  void browserSideWaitingShouldPollForLocatorsThatCanNotBeEvaluatedByScript() {
+    final WebElement mockedElement = mock(WebElement.class);
+    ImplicitlyWaitingWebDriver waitingDriver = new ImplicitlyWaitingWebDriver(mockedDriver, clock, clock, 1, 100);
+    waitingDriver.setBrowserSideWaiting(true);
+
+    when(mockedDriver.findElement(By.linkText("foo")))
+        .thenThrow(NoSuchElementException.class)
+        .thenReturn(mockedElement);
+
+    waitingDriver.getActivated().findElement(By.linkText("foo"));
+
+    assertThat(clock.now(), is(100L));
+    verify(mockedDriver, times(2)).findElement(By.linkText("foo"));
+    verify((JavascriptExecutor) mockedDriver, never()).executeAsyncScript(anyString(), any(), any(), any(), any());
+  }
+
+  @Test
+  void waitScopeShouldShareTheDeadlineBetweenNestedCalls() {
+    final WebElement mockedElement = mock(WebElement.class);
+    ImplicitlyWaitingWebDriver waitingDriver = new ImplicitlyWaitingWebDriver(mockedDriver, clock, clock, 1, 100);
+
+    when(mockedDriver.findElement(By.name("foo")))
+        .thenThrow(NoSuchElementException.class)
+        .thenThrow(NoSuchElementException.class)
+        .thenReturn(mockedElement);
+    when(mockedElement.findElement(By.name("bar")))
+        .thenThrow(NoSuchElementException.class);
+
+    try (WaitScope scope = waitingDriver.waitScope()) {
+      WebElement element = waitingDriver.getActivated().findElement(By.name("foo"));
+      assertThrows(NoSuchElementException.class, () -> element.findElement(By.name("bar")));
+    }
+
+    assertThat(clock.now(), is(1000L));
+    verify(mockedDriver, times(3)).findElement(By.name("foo"));
+    verify(mockedElement, times(9)).findElement(By.name("bar"));
+  }
+
+  @Test
+  void waitsShouldUseTheirOwnTimeoutAfterTheScopeIsClosed() {
+    ImplicitlyWaitingWebDriver waitingDriver = new ImplicitlyWaitingWebDriver(mockedDriver, clock, clock, 1, 100);
+
+    when(mockedDriver.findElement(By.name("foo")))
+        .thenThrow(NoSuchElementException.class);
+
+    try (WaitScope scope = waitingDriver.waitScope(300, TimeUnit.MILLISECONDS)) {
+      assertThrows(NoSuchElementException.class, () -> waitingDriver.getActivated().findElement(By.name("foo")));
+    }
+    assertThat(clock.now(), is(300L));
+
+    assertThrows(NoSuchElementException.class, () -> waitingDriver.getActivated().findElement(By.name("foo")));
+    assertThat(clock.now(), is(1300L));
+  }
+
+  @Test
+  void findElementShouldThrowFatalExceptionsAtOnce() {
+    when(mockedDriver.findElement(By.xpath("//foo[")))
+        .thenThrow(InvalidSelectorException.class);
+
+    assertThrows(InvalidSelectorException.class, () -> driver.findElement(By.xpath("//foo[")));
+
+    assertThat(clock.now(), is(0L));
+    verify(mockedDriver, times(1)).findElement(By.xpath("//foo["));
+  }
+
+  @Test
+  void clickShouldRetryStaleElementsALimitedNumberOfTimes() {
+    final WebElement mockedElement = mock(WebElement.class);
+
+    when(mockedDriver.findElement(By.name("foo")))
+        .thenReturn(mockedElement);
+    doThrow(StaleElementReferenceException.class)
+        .when(mockedElement).click();
+
+    WebElement element = driver.findElement(By.name("foo"));
+    assertThrows(StaleElementReferenceException.class, element::click);
+
+    assertThat(clock.now(), is(200L));
+    verify(mockedElement, times(3)).click();
+  }
+
+  @Test
+  void customClassifierShouldDecideWhatToRetry() {
+    ImplicitlyWaitingWebDriver waitingDriver = new ImplicitlyWaitingWebDriver(mockedDriver, clock, clock, 1, 100);
+    waitingDriver.setExceptionClassifier(new WebDriverExceptionClassifier().fatal(NoSuchElementException.class));
+
+    when(mockedDriver.findElement(By.name("foo")))
+        .thenThrow(NoSuchElementException.class);
+
+    assertThrows(NoSuchElementException.class, () -> waitingDriver.getActivated().findElement(By.name("foo")));
+
+    assertThat(clock.now(), is(0L));
+    verify(mockedDriver, times(1)).findElement(By.name("foo"));
+  }
+
+  @Test
+  void findElementShouldRetryUnknownRuntimeExceptionsByDefault() {
+    when(mockedDriver.findElement(By.name("foo")))
+        .thenThrow(IllegalStateException.class);
+
+    assertThrows(IllegalStateException.class, () -> driver.findElement(By.name("foo")));
+
+    assertThat(clock.now(), is(1000L));
+    verify(mockedDriver, times(11)).findElement(By.name("foo"));
+  }
+
+  @Test
+  void unknownRuntimeExceptionsCanBeMadeFatal() {
+    ImplicitlyWaitingWebDriver waitingDriver = new ImplicitlyWaitingWebDriver(mockedDriver, clock, clock, 1, 100);
+    waitingDriver.setExceptionClassifier(new WebDriverExceptionClassifier().fatal(RuntimeException.class));
+
+    when(mockedDriver.findElement(By.name("foo")))
+        .thenThrow(IllegalStateException.class);
+    when(mockedDriver.findElement(By.name("bar")))
+        .thenThrow(NoSuchElementException.class);
+
+    assertThrows(IllegalStateException.class, () -> waitingDriver.getActivated().findElement(By.name("foo")));
+    assertThat(clock.now(), is(0L));
+    verify(mockedDriver, times(1)).findElement(By.name("foo"));
+
+    assertThrows(NoSuchElementException.class, () -> waitingDriver.getActivated().findElement(By.name("bar")));
+    assertThat(clock.now(), is(1000L));
+  }
+
+  @Test
+  void adaptivePollingShouldBackOffAndLearnWhenElementsAppear() {
+    final WebElement mockedElement = mock(WebElement.class);
+    ImplicitlyWaitingWebDriver waitingDriver = new ImplicitlyWaitingWebDriver(mockedDriver, clock, clock, 1, 100);
+    waitingDriver.setPollingStrategy(new AdaptivePolling(50, 400, 2, 0, 10));
+
+    when(mockedDriver.findElement(By.name("foo")))
+        .thenThrow(NoSuchElementException.class)
+        .thenThrow(NoSuchElementException.class)
+        .thenThrow(NoSuchElementException.class)
+        .thenReturn(mockedElement)
+        .thenThrow(NoSuchElementException.class)
+        .thenReturn(mockedElement);
+
+    waitingDriver.getActivated().findElement(By.name("foo"));
+    assertThat(clock.now(), is(350L));
+
+    waitingDriver.getActivated().findElement(By.name("foo"));
+    assertThat(clock.now(), is(700L));
+    verify(mockedDriver, times(6)).findElement(By.name("foo"));
+  }
+
+  @Test
+  void pollingShouldNotSleepPastTheDeadline() {
+    ImplicitlyWaitingWebDriver waitingDriver = new ImplicitlyWaitingWebDriver(mockedDriver, clock, clock, 1, 300);
+
+    when(mockedDriver.findElement(By.name("foo")))
+        .thenThrow(NoSuchElementException.class);
+
+    assertThrows(NoSuchElementException.class, () -> waitingDriver.getActivated().findElement(By.name("foo")));
+
+    assertThat(clock.now(), is(1000L));
+    verify(mockedDriver, times(5)).findElement(By.name("foo"));
+  }
+
+  @Test
+  void findElementAsyncShouldWaitForAnElementWithoutBlocking() throws Exception {
+    final WebElement mockedElement = mock(WebElement.class);
+    ImplicitlyWaitingWebDriver waitingDriver = new ImplicitlyWaitingWebDriver(mockedDriver, clock, clock, 1, 10);
+
+    when(mockedDriver.findElement(By.name("foo")))
+        .thenThrow(NoSuchElementException.class)
+        .thenThrow(NoSuchElementException.class)
+        .thenReturn(mockedElement);
+
+    WebElement element = waitingDriver.findElementAsync(By.name("foo")).get(5, TimeUnit.SECONDS);
+
+    assertThat(element, equalTo(mockedElement));
+    verify(mockedDriver, times(3)).findElement(By.name("foo"));
+  }
+
+  @Test
+  void clickAsyncShouldClickTheWrappedElement() throws Exception {
+    final WebElement mockedElement = mock(WebElement.class);
+    ImplicitlyWaitingWebDriver waitingDriver = new ImplicitlyWaitingWebDriver(mockedDriver, clock, clock, 1, 10);
+
+    when(mockedDriver.findElement(By.name("foo")))
+        .thenReturn(mockedElement);
+    doThrow(ElementNotVisibleException.class)
+        .doNothing()
+        .when(mockedElement).click();
+
+    WebElement element = waitingDriver.getActivated().findElement(By.name("foo"));
+    waitingDriver.clickAsync(element).get(5, TimeUnit.SECONDS);
+
+    verify(mockedElement, times(2)).click();
+  }
+
+  @Test
+  void asyncWaitShouldFailAtOnceOnFatalExceptions() {
+    ImplicitlyWaitingWebDriver waitingDriver = new ImplicitlyWaitingWebDriver(mockedDriver, clock, clock, 1, 10);
+
+    when(mockedDriver.findElement(By.name("foo")))
+        .thenThrow(new NoSuchSessionException("Session is gone"));
+
+    ExecutionException e = assertThrows(ExecutionException.class,
+        () -> waitingDriver.findElementAsync(By.name("foo")).get(5, TimeUnit.SECONDS));
+
+    assertThat(e.getCause() instanceof NoSuchSessionException, is(true));
+    verify(mockedDriver, times(1)).findElement(By.name("foo"));
+  }
+
+  @Test
+  void asyncWaitShouldCompleteIfTheActionThrowsAnError() {
+    ImplicitlyWaitingWebDriver waitingDriver = new ImplicitlyWaitingWebDriver(mockedDriver, clock, clock, 1, 10);
+
+    when(mockedDriver.findElement(By.name("foo")))
+        .thenThrow(NoSuchElementException.class)
+        .thenThrow(new AssertionError("Broken"));
+
+    ExecutionException e = assertThrows(ExecutionException.class,
+        () -> waitingDriver.findElementAsync(By.name("foo")).get(5, TimeUnit.SECONDS));
+
+    assertThat(e.getCause() instanceof AssertionError, is(true));
+    verify(mockedDriver, times(2)).findElement(By.name("foo"));
+  }
+
+  @Test
+  void findElementsAsyncShouldReturnAnEmptyListIfTheLastAttemptFails() throws Exception {
+    ImplicitlyWaitingWebDriver waitingDriver = new ImplicitlyWaitingWebDriver(mockedDriver, clock, clock, 1, 10);
+
+    when(mockedDriver.findElements(By.name("foo"))).thenAnswer(invocation -> {
+      clock.sleep(1000);
+      throw new WebDriverException("Not ready");
+    });
+
+    List<WebElement> elements = waitingDriver.findElementsAsync(By.name("foo")).get(5, TimeUnit.SECONDS);
+
+    assertThat(elements.isEmpty(), is(true));
+    verify(mockedDriver, times(1)).findElements(By.name("foo"));
+  }
+
+  @Test
+  void asyncWaitsShouldNotQueueBehindBlockedCalls() throws Exception {
+    final WebElement mockedElement = mock(WebElement.class);
+    final CountDownLatch blocked = new CountDownLatch(1);
+    final CountDownLatch release = new CountDownLatch(1);
+    ImplicitlyWaitingWebDriver waitingDriver = new ImplicitlyWaitingWebDriver(mockedDriver, clock, clock, 1, 10);
+
+    when(mockedDriver.findElement(By.name("slow"))).thenAnswer(invocation -> {
+      blocked.countDown();
+      release.await(5, TimeUnit.SECONDS);
+      return mockedElement;
+    });
+    when(mockedDriver.findElement(By.name("fast"))).thenReturn(mockedElement);
+
+    List<CompletableFuture<WebElement>> slow = new ArrayList<>();
+    for (int i = 0; i < Runtime.getRuntime().availableProcessors() + 1; i++) {
+      slow.add(waitingDriver.findElementAsync(By.name("slow")));
+    }
+    assertThat(blocked.await(5, TimeUnit.SECONDS), is(true));
+    assertThat(waitingDriver.findElementAsync(By.name("fast")).get(5, TimeUnit.SECONDS), equalTo(mockedElement));
+
+    release.countDown();
+    for (CompletableFuture<WebElement> future : slow) {
+      assertThat(future.get(5, TimeUnit.SECONDS), equalTo(mockedElement));
+    }
+  }
+
+  @Test
+  void findFirstMatchingShouldCheckAllLocatorsInASingleScript() {
+    final WebElement mockedElement = mock(WebElement.class);
+    ImplicitlyWaitingWebDriver waitingDriver = new ImplicitlyWaitingWebDriver(mockedDriver, clock, clock, 1, 100);
+
+    when(((JavascriptExecutor) mockedDriver).executeScript(anyString(), any()))
+        .thenReturn(null)
+        .thenReturn(null)
+        .thenReturn(Lists.newArrayList(1L, mockedElement));
+
+    Map<By, String> locators = new LinkedHashMap<>();
+    locators.put(By.id("error"), "error");
+    locators.put(By.cssSelector(".toast"), "success");
+    Match<String> match = waitingDriver.findFirstMatching(locators);
+
+    assertThat(clock.now(), is(200L));
+    assertThat(match.getKey(), is("success"));
+    assertThat(match.getLocator(), is(By.cssSelector(".toast")));
+    assertThat(match.getElement(), equalTo(mockedElement));
+    verify((JavascriptExecutor) mockedDriver, times(3)).executeScript(anyString(), any());
+    verify(mockedDriver, never()).findElements(any(By.class));
+  }
+
+  @Test
+  void findAnyShouldLookUpLocatorsOneByOneIfTheyCanNotBeEvaluatedByScript() {
+    final WebElement mockedElement = mock(WebElement.class);
+    ImplicitlyWaitingWebDriver waitingDriver = new ImplicitlyWaitingWebDriver(mockedDriver, clock, clock, 1, 100);
+
+    when(mockedDriver.findElements(By.id("error")))
+        .thenReturn(new ArrayList<>());
+    when(mockedDriver.findElements(By.linkText("Continue")))
+        .thenReturn(new ArrayList<>())
+        .thenReturn(Lists.newArrayList(mockedElement));
+
+    WebElement element = waitingDriver.findAny(By.id("error"), By.linkText("Continue"));
+
+    assertThat(clock.now(), is(100L));
+    assertThat(element, equalTo(mockedElement));
+    verify(mockedDriver, times(2)).findElements(By.id("error"));
+  }
+
+  @Test
+  void findAnyShouldThrowIfNothingMatches() {
+    ImplicitlyWaitingWebDriver waitingDriver = new ImplicitlyWaitingWebDriver(mockedDriver, clock, clock, 1, 100);
+
+    assertThrows(NoSuchElementException.class, () -> waitingDriver.findAny(By.id("error"), By.id("success")));
+
+    assertThat(clock.now(), is(1000L));
+    verify((JavascriptExecutor) mockedDriver, times(11)).executeScript(anyString(), any());
+  }
+
+  @Test
+  void findAtLeastShouldCountAndFindElementsInASingleScript() {
+    final WebElement mockedElement = mock(WebElement.class);
+    ImplicitlyWaitingWebDriver waitingDriver = new ImplicitlyWaitingWebDriver(mockedDriver, clock, clock, 1, 100);
+
+    when(((JavascriptExecutor) mockedDriver).executeScript(anyString(), eq("css"), eq(".row"), eq(3), any()))
+        .thenReturn(1L)
+        .thenReturn(2L)
+        .thenReturn(Lists.newArrayList(mockedElement, mockedElement, mockedElement));
+
+    List<WebElement> elements = waitingDriver.findAtLeast(By.cssSelector(".row"), 3);
+
+    assertThat(clock.now(), is(200L));
+    assertThat(elements.size(), is(3));
+    verify((JavascriptExecutor) mockedDriver, times(3)).executeScript(anyString(), any(), any(), any(), any());
+    verify(mockedDriver, never()).findElements(By.cssSelector(".row"));
+  }
+
+  @Test
+  void findWhenStableShouldFindElementsByScriptOnlyAfterTheCountSettles() {
+    final WebElement mockedElement = mock(WebElement.class);
+    ImplicitlyWaitingWebDriver waitingDriver = new ImplicitlyWaitingWebDriver(mockedDriver, clock, clock, 1, 100);
+
+    when(((JavascriptExecutor) mockedDriver).executeScript(anyString(), eq("css"), eq(".row"), eq(-1), eq(-1)))
+        .thenReturn(2L);
+    when(((JavascriptExecutor) mockedDriver).executeScript(anyString(), eq("css"), eq(".row"), eq(2), eq(2)))
+        .thenReturn(Lists.newArrayList(mockedElement, mockedElement));
+
+    List<WebElement> elements = waitingDriver.findWhenStable(By.cssSelector(".row"), 200, TimeUnit.MILLISECONDS);
+
+    assertThat(clock.now(), is(200L));
+    assertThat(elements.size(), is(2));
+    verify((JavascriptExecutor) mockedDriver, times(2)).executeScript(anyString(), any(), any(), eq(-1), eq(-1));
+  }
+
+  @Test
+  void findExactlyShouldTimeOutIfTheCountDoesNotMatch() {
+    final WebElement mockedElement = mock(WebElement.class);
+    ImplicitlyWaitingWebDriver waitingDriver = new ImplicitlyWaitingWebDriver(mockedDriver, clock, clock, 1, 100);
+
+    when(mockedDriver.findElements(By.linkText("Next")))
+        .thenReturn(Lists.newArrayList(mockedElement, mockedElement));
+
+    assertThrows(TimeoutException.class, () -> waitingDriver.findExactly(By.linkText("Next"), 1));
+
+    assertThat(clock.now(), is(1000L));
+    verify(mockedDriver, times(11)).findElements(By.linkText("Next"));
+  }
+
+  @Test
+  void findWhenStableShouldWaitUntilTheCountStopsChanging() {
+    final WebElement mockedElement = mock(WebElement.class);
+    ImplicitlyWaitingWebDriver waitingDriver = new ImplicitlyWaitingWebDriver(mockedDriver, clock, clock, 1, 100);
+
+    when(mockedDriver.findElements(By.linkText("Item")))
+        .thenReturn(new ArrayList<>())
+        .thenReturn(Lists.newArrayList(mockedElement))
+        .thenReturn(Lists.newArrayList(mockedElement, mockedElement));
+
+    List<WebElement> elements = waitingDriver.findWhenStable(By.linkText("Item"), 200, TimeUnit.MILLISECONDS);
+
+    assertThat(clock.now(), is(400L));
+    assertThat(elements.size(), is(2));
+    verify(mockedDriver, times(5)).findElements(By.linkText("Item"));
+  }
+
+  @Test
+  void readinessGateShouldRetryAtOnceWhenThePageBecomesIdle() {
+    final WebElement mockedElement = mock(WebElement.class);
+    ImplicitlyWaitingWebDriver waitingDriver = new ImplicitlyWaitingWebDriver(mockedDriver, clock, clock, 1, 100);
+    waitingDriver.setPageReadinessGate(true);
+
+    when(mockedDriver.findElement(By.name("foo")))
+        .thenThrow(NoSuchElementException.class)
+        .thenReturn(mockedElement);
+    when(((JavascriptExecutor) mockedDriver).executeAsyncScript(anyString(), anyLong()))
+        .thenReturn(true);
+
+    WebElement element = waitingDriver.getActivated().findElement(By.name("foo"));
+
+    assertThat(clock.now(), is(0L));
+    assertThat(((WrapsElement) element).getWrappedElement(), equalTo(mockedElement));
+    verify((JavascriptExecutor) mockedDriver, times(1)).executeAsyncScript(anyString(), eq(250L));
+    verify(mockedDriver, times(2)).findElement(By.name("foo"));
+  }
+
+  @Test
+  void readinessGateShouldFallBackToPollingIfThePageNeverBecomesIdle() {
+    final WebElement mockedElement = mock(WebElement.class);
+    ImplicitlyWaitingWebDriver waitingDriver = new ImplicitlyWaitingWebDriver(mockedDriver, clock, clock, 1, 100);
+    waitingDriver.setPageReadinessGate(true);
+
+    when(mockedDriver.findElement(By.name("foo")))
+        .thenThrow(NoSuchElementException.class)
+        .thenReturn(mockedElement);
+    when(((JavascriptExecutor) mockedDriver).executeAsyncScript(anyString(), anyLong())).thenAnswer(invocation -> {
+      clock.sleep(invocation.getArgument(1));
+      return false;
+    });
+
+    WebElement element = waitingDriver.getActivated().findElement(By.name("foo"));
+
+    assertThat(clock.now(), is(350L));
+    assertThat(((WrapsElement) element).getWrappedElement(), equalTo(mockedElement));
+    verify((JavascriptExecutor) mockedDriver, times(1)).executeAsyncScript(anyString(), eq(250L));
+  }
+
+  @Test
+  void readinessGateShouldFallBackToPollingIfThePageIsNotIdle() {
+    final WebElement mockedElement = mock(WebElement.class);
+    ImplicitlyWaitingWebDriver waitingDriver = new ImplicitlyWaitingWebDriver(mockedDriver, clock, clock, 1, 100);
+    waitingDriver.setPageReadinessGate(true);
+
+    when(mockedDriver.findElement(By.name("foo")))
+        .thenReturn(mockedElement);
+    doThrow(ElementNotInteractableException.class)
+        .doThrow(ElementNotInteractableException.class)
+        .doNothing()
+        .when(mockedElement).click();
+    when(((JavascriptExecutor) mockedDriver).executeAsyncScript(anyString(), anyLong()))
+        .thenThrow(new ScriptTimeoutException("Timed out"));
+
+    waitingDriver.getActivated().findElement(By.name("foo")).click();
+
+    assertThat(clock.now(), is(200L));
+    verify((JavascriptExecutor) mockedDriver, times(1)).executeAsyncScript(anyString(), anyLong());
+    verify(mockedElement, times(3)).click();
+  }
+
+  @Test
+  void shouldAccountForWaitTimePerMethodAndLocator() {
+    final WebElement mockedElement = mock(WebElement.class);
+    ImplicitlyWaitingWebDriver waitingDriver = new ImplicitlyWaitingWebDriver(mockedDriver, clock, clock, 1, 100);
+    waitingDriver.setNanoTime(() -> TimeUnit.MILLISECONDS.toNanos(clock.now()));
+    WebDriver driver = waitingDriver.getActivated();
+
+    when(mockedDriver.findElement(By.name("foo")))
+        .thenThrow(NoSuchElementException.class)
+        .thenThrow(NoSuchElementException.class)
+        .thenReturn(mockedElement);
+    when(mockedDriver.findElement(By.name("bar")))
+        .thenThrow(NoSuchElementException.class);
+    when(mockedDriver.findElement(By.name("baz")))
+        .thenReturn(mockedElement);
+
+    driver.findElement(By.name("foo"));
+    assertThrows(NoSuchElementException.class, () -> driver.findElement(By.name("bar")));
+    driver.findElement(By.name("baz"));
+
+    WaitStatistics.Snapshot foo = waitingDriver.getStatistics().byLocator().get(By.name("foo"));
+    assertThat(foo.getWaits(), is(1L));
+    assertThat(foo.getPolls(), is(2L));
+    assertThat(foo.getSuccesses(), is(1L));
+    assertThat(foo.getTotalWaitNanos(), is(TimeUnit.MILLISECONDS.toNanos(200)));
+
+    WaitStatistics.Snapshot bar = waitingDriver.getStatistics().byLocator().get(By.name("bar"));
+    assertThat(bar.getTimeouts(), is(1L));
+    assertThat(bar.getPolls(), is(10L));
+
+    assertThat(waitingDriver.getStatistics().byLocator().containsKey(By.name("baz")), is(false));
+    WaitStatistics.Snapshot findElement = waitingDriver.getStatistics().byMethod().get("findElement");
+    assertThat(findElement.getWaits(), is(2L));
+    assertThat(findElement.getWaitTime().getMaxNanos(), is(TimeUnit.MILLISECONDS.toNanos(1000)));
+
+    waitingDriver.getStatistics().reset();
+    assertThat(waitingDriver.getStatistics().byMethod().isEmpty(), is(true));
+  }
+
+  @Test
+  void waitTimeShouldBeMeasuredInNanoseconds() {
+    final WebElement mockedElement = mock(WebElement.class);
+    ImplicitlyWaitingWebDriver waitingDriver = new ImplicitlyWaitingWebDriver(mockedDriver, clock, clock, 1, 100);
+    AtomicLong nanos = new AtomicLong();
+    waitingDriver.setNanoTime(() -> nanos.getAndAdd(1500));
+    WebDriver driver = waitingDriver.getActivated();
+
+    when(mockedDriver.findElement(By.name("foo")))
+        .thenThrow(NoSuchElementException.class)
+        .thenReturn(mockedElement);
+
+    driver.findElement(By.name("foo"));
+
+    WaitStatistics.Snapshot foo = waitingDriver.getStatistics().byLocator().get(By.name("foo"));
+    assertThat(foo.getTotalWaitNanos(), is(1500L));
+    assertThat(foo.getWaitTime().getPercentileNanos(0.5), lessThan(TimeUnit.MICROSECONDS.toNanos(10)));
+  }
+
+  @Test
+  void waitStatisticsShouldKeepOnlyTheMostRecentlyUsedLocators() {
+    WaitStatistics statistics = new WaitStatistics(2);
+    statistics.record("findElement", By.name("foo"), 1, WaitStatistics.Outcome.SUCCESS, 100);
+    statistics.record("findElement", By.name("bar"), 1, WaitStatistics.Outcome.SUCCESS, 100);
+    statistics.record("findElement", By.name("foo"), 1, WaitStatistics.Outcome.SUCCESS, 100);
+    statistics.record("findElement", By.name("baz"), 1, WaitStatistics.Outcome.SUCCESS, 100);
+
+    assertThat(statistics.byLocator().keySet(), containsInAnyOrder(By.name("foo"), By.name("baz")));
+    assertThat(statistics.byLocator().get(By.name("foo")).getWaits(), is(2L));
+    assertThat(statistics.byMethod().get("findElement").getWaits(), is(4L));
+  }
+
+  @Test
+  void waitPolicyShouldOverrideTimeoutAndIntervalForMethodsAndLocators() {
+    ImplicitlyWaitingWebDriver waitingDriver = new ImplicitlyWaitingWebDriver(mockedDriver, clock, clock, 1, 100);
+    waitingDriver.setWaitPolicy(new WaitPolicy()
+        .forLocator("report", 2000, 500, TimeUnit.MILLISECONDS)
+        .forMethod("findElement", 300, 50, TimeUnit.MILLISECONDS));
+
+    when(mockedDriver.findElement(any(By.class)))
+        .thenThrow(NoSuchElementException.class);
+
+    assertThrows(NoSuchElementException.class, () -> waitingDriver.getActivated().findElement(By.id("report-widget")));
+    assertThat(clock.now(), is(2000L));
+    verify(mockedDriver, times(5)).findElement(By.id("report-widget"));
+
+    assertThrows(NoSuchElementException.class, () -> waitingDriver.getActivated().findElement(By.id("menu")));
+    assertThat(clock.now(), is(2300L));
+    verify(mockedDriver, times(7)).findElement(By.id("menu"));
+  }
+
+  @Test
+  void waitPolicyShouldMatchElementMethodsByTheTagOfTheirLocator() {
+    final WebElement mockedElement = mock(WebElement.class);
+    ImplicitlyWaitingWebDriver waitingDriver = new ImplicitlyWaitingWebDriver(mockedDriver, clock, clock, 1, 100);
+    waitingDriver.setWaitPolicy(new WaitPolicy()
+        .forTag("button", 500, 250, TimeUnit.MILLISECONDS));
+
+    By locator = By.cssSelector("div.menu > button.primary");
+    when(mockedDriver.findElement(locator))
+        .thenReturn(mockedElement);
+    doThrow(ElementNotInteractableException.class)
+        .when(mockedElement).click();
+
+    WebElement element = waitingDriver.getActivated().findElement(locator);
+    assertThrows(ElementNotInteractableException.class, element::click);
+
+    assertThat(clock.now(), is(500L));
+    verify(mockedElement, times(3)).click();
+  }
+
+  @Test
+  void shouldWaitForTextInASingleScriptPerAttempt() {
+    final WebElement mockedElement = mock(WebElement.class);
+
+    when(mockedDriver.findElement(By.id("status")))
+        .thenReturn(mockedElement);
+    when(((JavascriptExecutor) mockedDriver).executeScript(anyString(), eq(mockedElement), eq("text"), isNull()))
+        .thenReturn("Loading")
+        .thenReturn("Loading")
+        .thenReturn("Saved 3 items");
+
+    String text = ((WaitingWebElement) driver.findElement(By.id("status"))).waitForText(Pattern.compile("Saved \\d+"));
+
+    assertThat(text, is("Saved 3 items"));
+    assertThat(clock.now(), is(200L));
+    verify((JavascriptExecutor) mockedDriver, times(3)).executeScript(anyString(), any(), any(), any());
+    verify(mockedElement, never()).getText();
+  }
+
+  @Test
+  void shouldWaitForAttributeValue() {
+    final WebElement mockedElement = mock(WebElement.class);
+
+    when(mockedDriver.findElement(By.id("button")))
+        .thenReturn(mockedElement);
+    when(((JavascriptExecutor) mockedDriver).executeScript(anyString(), eq(mockedElement), eq("attribute"), eq("aria-busy")))
+        .thenReturn("true")
+        .thenReturn("false");
+
+    String value = ((WaitingWebElement) driver.findElement(By.id("button"))).waitForAttribute("aria-busy", "false");
+
+    assertThat(value, is("false"));
+    assertThat(clock.now(), is(100L));
+  }
+
+  @Test
+  void shouldWaitForTheLiveValueOfAnInput() {
+    final WebElement mockedElement = mock(WebElement.class);
+
+    when(mockedDriver.findElement(By.id("input")))
+        .thenReturn(mockedElement);
+    when(((JavascriptExecutor) mockedDriver).executeScript(
+        argThat((String script) -> script.contains("var value = element[")), eq(mockedElement), eq("attribute"), eq("value")))
+        .thenReturn("")
+        .thenReturn("typed");
+
+    String value = ((WaitingWebElement) driver.findElement(By.id("input"))).waitForAttribute("value", "typed");
+
+    assertThat(value, is("typed"));
+    assertThat(clock.now(), is(100L));
+    verify(mockedElement, never()).getAttribute("value");
+  }
+
+  @Test
+  void shouldWaitForTheValueByElementMethodIfScriptsCanNotBeExecuted() {
+    final WebDriver plainDriver = mock(WebDriver.class, RETURNS_DEEP_STUBS);
+    final WebElement mockedElement = mock(WebElement.class);
+    final WebDriver driver = new ImplicitlyWaitingWebDriver(plainDriver, clock, clock, 1, 100).getActivated();
+
+    when(plainDriver.findElement(By.id("input")))
+        .thenReturn(mockedElement);
+    when(mockedElement.getAttribute("value"))
+        .thenReturn("")
+        .thenReturn("typed");
+
+    String value = ((WaitingWebElement) driver.findElement(By.id("input"))).waitForAttribute("value", "typed");
+
+    assertThat(value, is("typed"));
+    assertThat(clock.now(), is(100L));
+  }
+
+  @Test
+  void shouldThrowTimeoutExceptionIfElementIsNotDisplayedInTime() {
+    final WebElement mockedElement = mock(WebElement.class);
+
+    when(mockedDriver.findElement(By.id("dialog")))
+        .thenReturn(mockedElement);
+    when(((JavascriptExecutor) mockedDriver).executeScript(anyString(), eq(mockedElement), eq("displayed"), isNull()))
+        .thenReturn(false);
+
+    WaitingWebElement element = (WaitingWebElement) driver.findElement(By.id("dialog"));
+    assertThrows(TimeoutException.class, element::waitUntilDisplayed);
+
+    assertThat(clock.now(), is(1000L));
+    verify((JavascriptExecutor) mockedDriver, times(11)).executeScript(anyString(), any(), any(), any());
+  }
 }
@@ -0,0 +1,197 @@
+/*
+ * Copyright 2013 Alexei Barantsev
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package ru.stqa.selenium.logging;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Reads archives written by {@link ArchiveTraceSink}: finds blocks by the index, and decompresses only those.
+ * Run from the command line to list the failed tests, or to print the records of a test:
+ * <code>java ru.stqa.selenium.logging.ArchiveReader build/trace.jsonl.gz [test name]</code>
+ */
+public class ArchiveReader {
+
+  private ArchiveReader() {}
+
+  /**
+   * An entry of the archive index.
+   */
+  public static class Block {
+
+    private final long offset;
+    private final int length;
+    private final int records;
+    private final long firstTimestamp;
+    private final long lastTimestamp;
+    private final String session;
+    private final String test;
+    private final boolean error;
+    private final boolean failed;
+
+    Block(Map<String, String> fields) {
+      this.offset = Long.parseLong(fields.get("offset"));
+      this.length = Integer.parseInt(fields.get("length"));
+      this.records = Integer.parseInt(fields.get("records"));
+      this.firstTimestamp = Long.parseLong(fields.get("firstTs"));
+      this.lastTimestamp = Long.parseLong(fields.get("lastTs"));
+      this.session = fields.get("session");
+      this.test = fields.get("test");
+      this.error = Boolean.parseBoolean(fields.get("error"));
+      this.failed = Boolean.parseBoolean(fields.get("failed"));
+    }
+
+    public long getOffset() {
+      return offset;
+    }
+
+    public int getLength() {
+      return length;
+    }
+
+    public int getRecords() {
+      return records;
+    }
+
+    public long getFirstTimestamp() {
+      return firstTimestamp;
+    }
+
+    public long getLastTimestamp() {
+      return lastTimestamp;
+    }
+
+    public String getSession() {
+      return session;
+    }
+
+    /**
+     * Returns the name of the test the records belong to, null if no test was started in the session.
+     */
+    public String getTest() {
+      return test;
+    }
+
+    /**
+     * Tells if a command of the block has thrown an exception.
+     */
+    public boolean isError() {
+      return error;
+    }
+
+    /**
+     * Tells if the test was reported as failed before the block was written.
+     */
+    public boolean isFailed() {
+      return failed;
+    }
+  }
+
+  public static List<Block> index(Path archive) throws IOException {
+    List<Block> blocks = new ArrayList<>();
+    try (BufferedReader reader = Files.newBufferedReader(ArchiveTraceSink.indexOf(archive), StandardCharsets.UTF_8)) {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        if (!line.isEmpty()) {
+          blocks.add(new Block(TraceReader.parse(line)));
+        }
+      }
+    }
+    return blocks;
+  }
+
+  /**
+   * Returns the names of the tests reported as failed, in the order of the archive.
+   */
+  public static Set<String> failedTests(Path archive) throws IOException {
+    Set<String> tests = new LinkedHashSet<>();
+    for (Block block : index(archive)) {
+      if (block.isFailed() && block.getTest() != null) {
+        tests.add(block.getTest());
+      }
+    }
+    return Collections.unmodifiableSet(tests);
+  }
+
+  /**
+   * Returns the JSON lines of all blocks of the test, decompressing only these blocks.
+   */
+  public static List<String> readTest(Path archive, String test) throws IOException {
+    List<Block> blocks = new ArrayList<>();
+    for (Block block : index(archive)) {
+      if (Objects.equals(block.getTest(), test)) {
+        blocks.add(block);
+      }
+    }
+    return read(archive, blocks);
+  }
+
+  public static List<String> read(Path archive, List<Block> blocks) throws IOException {
+    List<String> lines = new ArrayList<>();
+    try (FileChannel channel = FileChannel.open(archive, StandardOpenOption.READ)) {
+      for (Block block : blocks) {
+        if (block.getLength() == 0) {
+          continue;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(block.getLength());
+        while (buffer.hasRemaining()) {
+          if (channel.read(buffer, block.getOffset() + buffer.position()) < 0) {
+            throw new IOException("Archive is truncated at " + (block.getOffset() + buffer.position()));
+          }
+        }
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+          new GZIPInputStream(new ByteArrayInputStream(buffer.array())), StandardCharsets.UTF_8))) {
+          String line;
+          while ((line = reader.readLine()) != null) {
+            lines.add(line);
+          }
+        }
+      }
+    }
+    return lines;
+  }
+
+  public static void main(String[] args) throws IOException {
+    if (args.length == 0) {
+      System.err.println("Usage: ArchiveReader <archive> [test name]");
+      System.exit(1);
+    }
+    Path archive = Paths.get(args[0]);
+    if (args.length == 1) {
+      failedTests(archive).forEach(System.out::println);
+    } else {
+      readTest(archive, args[1]).forEach(System.out::println);
+    }
+  }
+}
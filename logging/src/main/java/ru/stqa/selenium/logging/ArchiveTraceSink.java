@@ -0,0 +1,231 @@
+/*
+ * Copyright 2013 Alexei Barantsev
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package ru.stqa.selenium.logging;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes trace records as JSON lines, see {@link JsonLinesTraceSink}, into compressed blocks appended to an archive.
+ * Each block holds records of a single session and test, and is a complete gzip member, so the whole archive
+ * can still be read with zcat. For each block a line is appended to the index file next to the archive,
+ * named like the archive with ".idx" added:
+ * <code>{"offset":0,"length":5120,"records":312,"firstTs":1580000000000,"lastTs":1580000012345,
+ * "session":"1","test":"LoginTest.wrongPassword","error":true,"failed":true}</code>
+ * The error flag tells that a command of the block has thrown an exception, the failed flag tells that the test
+ * was reported as failed, see {@link LoggingWebDriver#testFailed()}.
+ * A block is written when it reaches the block size, when a test starts or fails, and when the sink is flushed.
+ * A test reported as failed gets an index entry even if it has no records left to write, such an entry has
+ * zero length and timestamps.
+ * {@link ArchiveReader} uses the index to read the records of failed tests without decompressing the whole archive.
+ * Test names come from {@link LoggingWebDriver#testStarted(String)}. Parallel processes should write separate archives.
+ * The sink is thread safe, but compresses blocks on the calling thread holding a lock shared by all sessions,
+ * wrap it into {@link AsyncTraceSink} to keep the compression and I/O off the calling threads.
+ */
+public class ArchiveTraceSink implements TraceSink {
+
+  private final Path archive;
+  private final Path index;
+  private final int blockSize;
+  private final JsonTraceFormatter formatter;
+
+  private final Map<String, Block> blocks = new HashMap<>();
+  private final ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+  private final StringBuilder line = new StringBuilder(256);
+
+  private FileChannel archiveChannel;
+  private FileChannel indexChannel;
+
+  private static class Block {
+    private final String session;
+    private String test;
+    private final StringBuilder records = new StringBuilder();
+    private int count = 0;
+    private long firstTimestamp;
+    private long lastTimestamp;
+    private boolean error = false;
+    private boolean failed = false;
+
+    private Block(String session) {
+      this.session = session;
+    }
+  }
+
+  /**
+   * Writes blocks of 256 KB of uncompressed records.
+   */
+  public ArchiveTraceSink(Path archive) {
+    this(archive, 256 * 1024, new ValueSummarizer());
+  }
+
+  /**
+   * @param blockSize the number of characters of uncompressed records after which the block is written
+   */
+  public ArchiveTraceSink(Path archive, int blockSize, ValueSummarizer summarizer) {
+    this.archive = archive;
+    this.index = indexOf(archive);
+    this.blockSize = blockSize;
+    this.formatter = new JsonTraceFormatter(summarizer);
+  }
+
+  static Path indexOf(Path archive) {
+    return Paths.get(archive.toString() + ".idx");
+  }
+
+  @Override
+  public synchronized void accept(TraceRecord record) {
+    if (record.getKind() == TraceRecord.Kind.BEFORE) {
+      return;
+    }
+    Block block = blockOf(record.getSession());
+    if (block.count == 0) {
+      block.firstTimestamp = record.getTimestamp();
+    }
+    block.count++;
+    block.lastTimestamp = Math.max(block.lastTimestamp, record.getTimestamp());
+    block.error |= record.getKind() == TraceRecord.Kind.ERROR;
+    formatter.appendRecord(block.records, record);
+    block.records.append('\n');
+    if (block.records.length() >= blockSize || record.endsSession()) {
+      write(block, false);
+    }
+    if (record.endsSession()) {
+      blocks.remove(block.session);
+    }
+  }
+
+  private Block blockOf(String session) {
+    String id = session == null ? "" : session;
+    Block block = blocks.get(id);
+    if (block == null) {
+      block = new Block(id);
+      blocks.put(id, block);
+    }
+    return block;
+  }
+
+  /**
+   * Writes the block of the session and marks the rest of the test as failed, the index gets an entry
+   * with the failed flag even if there are no records left to write.
+   */
+  @Override
+  public synchronized void failed(String session) {
+    Block block = blockOf(session);
+    block.failed = true;
+    write(block, true);
+  }
+
+  @Override
+  public synchronized void testStarted(String session, String testName) {
+    Block block = blockOf(session);
+    write(block, false);
+    block.test = testName;
+    block.failed = false;
+  }
+
+  private void write(Block block, boolean force) {
+    if (block.count == 0 && !force) {
+      return;
+    }
+    try {
+      open();
+      long offset = archiveChannel.size();
+      int length = 0;
+      if (block.count > 0) {
+        compressed.reset();
+        try (Writer writer = new OutputStreamWriter(new GZIPOutputStream(compressed, 8192), StandardCharsets.UTF_8)) {
+          writer.append(block.records);
+        }
+        length = compressed.size();
+        writeFully(archiveChannel, ByteBuffer.wrap(compressed.toByteArray(), 0, length));
+      }
+
+      line.setLength(0);
+      line.append("{\"offset\":").append(offset).append(",\"length\":").append(length)
+        .append(",\"records\":").append(block.count)
+        .append(",\"firstTs\":").append(block.firstTimestamp).append(",\"lastTs\":").append(block.lastTimestamp);
+      JsonTraceFormatter.appendField(line, "session", block.session);
+      JsonTraceFormatter.appendField(line, "test", block.test);
+      line.append(",\"error\":").append(block.error).append(",\"failed\":").append(block.failed).append("}\n");
+      writeFully(indexChannel, StandardCharsets.UTF_8.encode(line.toString()));
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    } finally {
+      block.records.setLength(0);
+      block.count = 0;
+      block.firstTimestamp = 0;
+      block.lastTimestamp = 0;
+      block.error = false;
+    }
+  }
+
+  private void open() throws IOException {
+    if (archiveChannel != null) {
+      return;
+    }
+    Path directory = archive.toAbsolutePath().getParent();
+    if (directory != null) {
+      Files.createDirectories(directory);
+    }
+    archiveChannel = FileChannel.open(archive, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    indexChannel = FileChannel.open(index, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+  }
+
+  private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+  }
+
+  /**
+   * Writes the blocks of all sessions, even if they are not full yet.
+   */
+  @Override
+  public synchronized void flush() {
+    blocks.values().forEach(block -> write(block, false));
+  }
+
+  @Override
+  public synchronized void close() {
+    flush();
+    if (archiveChannel == null) {
+      return;
+    }
+    try {
+      archiveChannel.close();
+      indexChannel.close();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    } finally {
+      archiveChannel = null;
+      indexChannel = null;
+    }
+  }
+}
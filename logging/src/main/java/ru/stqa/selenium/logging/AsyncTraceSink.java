@@ -0,0 +1,257 @@
+/*
+ * Copyright 2013 Alexei Barantsev
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package ru.stqa.selenium.logging;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Passes records to another sink on a background thread, so formatting and I/O are done off the calling thread.
+ * Records are copied into a preallocated ring buffer, when it is full the calling thread waits for free space
+ * rather than losing records. Failures, test starts and flushes are queued after the records accepted before them,
+ * so the delegate is called from the background thread only and does not need to be thread safe.
+ * The buffer does not keep the traced objects: the target, arguments and result of a command are summarized
+ * by the calling thread, see {@link ValueSummarizer}, and the delegate gets the summaries, written to log lines
+ * as they are. Each sink runs its own thread until it is closed, so a sink made for a single driver should be
+ * closed when the driver quits, and a sink shared by all drivers should be closed when the tests end:
+ * <code>loggingDriver.setTraceSink(new AsyncTraceSink(new Slf4jTraceSink(), 4096), true);</code>
+ */
+public class AsyncTraceSink implements TraceSink {
+
+  private static final AtomicInteger threads = new AtomicInteger();
+
+  // records are summarized into it by the calling thread before taking the lock
+  private static final ThreadLocal<TraceRecord> SUMMARIZED = ThreadLocal.withInitial(TraceRecord::new);
+
+  private final TraceSink delegate;
+  private final ValueSummarizer summarizer;
+  private final TraceRecord[] slots;
+  private final int mask;
+  private final ReentrantLock lock = new ReentrantLock();
+  private final Condition notEmpty = lock.newCondition();
+  private final Condition notFull = lock.newCondition();
+  private final Condition consumed = lock.newCondition();
+  private final Thread worker;
+  private final ArrayDeque<Control> controls = new ArrayDeque<>();
+
+  private long head = 0;
+  private long tail = 0;
+  private volatile boolean closed = false;
+
+  /**
+   * A call to the delegate that is made once the records accepted before it are passed on.
+   */
+  private static class Control {
+    private final long position;
+    private final Runnable action;
+    private boolean done = false;
+
+    private Control(long position, Runnable action) {
+      this.position = position;
+      this.action = action;
+    }
+  }
+
+  /**
+   * @param capacity the number of records in the buffer, rounded up to a power of two
+   */
+  public AsyncTraceSink(TraceSink delegate, int capacity) {
+    this(delegate, capacity, new ValueSummarizer());
+  }
+
+  /**
+   * @param capacity the number of records in the buffer, rounded up to a power of two
+   * @param summarizer the summarizer of the delegate, so its settings apply to the records
+   */
+  public AsyncTraceSink(TraceSink delegate, int capacity, ValueSummarizer summarizer) {
+    this.delegate = delegate;
+    this.summarizer = summarizer;
+    int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+    this.slots = new TraceRecord[size];
+    for (int i = 0; i < size; i++) {
+      slots[i] = new TraceRecord();
+    }
+    this.mask = size - 1;
+    this.worker = new Thread(this::drain, "trace-writer-" + threads.incrementAndGet());
+    this.worker.setDaemon(true);
+    this.worker.start();
+  }
+
+  @Override
+  public boolean isEnabled() {
+    return !closed && delegate.isEnabled();
+  }
+
+  @Override
+  public boolean isEnabled(TraceRecord.Kind kind) {
+    return !closed && delegate.isEnabled(kind);
+  }
+
+  @Override
+  public void accept(TraceRecord record) {
+    TraceRecord summarized = SUMMARIZED.get();
+    summarized.copySummarized(record, summarizer);
+    lock.lock();
+    try {
+      while (head - tail == slots.length && !closed) {
+        notFull.awaitUninterruptibly();
+      }
+      if (closed) {
+        return;
+      }
+      slots[(int) (head & mask)].copyFrom(summarized);
+      head++;
+      notEmpty.signal();
+    } finally {
+      lock.unlock();
+      summarized.clear();
+    }
+  }
+
+  private void drain() {
+    List<Control> due = new ArrayList<>();
+    while (true) {
+      long from;
+      long to;
+      lock.lock();
+      try {
+        while (head == tail && controls.isEmpty()) {
+          if (closed) {
+            return;
+          }
+          notEmpty.awaitUninterruptibly();
+        }
+        from = tail;
+        to = controls.isEmpty() ? head : Math.min(head, controls.peek().position);
+      } finally {
+        lock.unlock();
+      }
+
+      // slots between tail and head are not touched by producers until tail moves
+      for (long i = from; i < to; i++) {
+        TraceRecord record = slots[(int) (i & mask)];
+        try {
+          delegate.accept(record);
+        } catch (RuntimeException e) {
+          // a failing sink should not stop the writer
+        }
+        record.clear();
+      }
+
+      lock.lock();
+      try {
+        tail = to;
+        while (!controls.isEmpty() && controls.peek().position <= tail) {
+          due.add(controls.poll());
+        }
+        notFull.signalAll();
+        consumed.signalAll();
+      } finally {
+        lock.unlock();
+      }
+
+      if (due.isEmpty()) {
+        continue;
+      }
+      for (Control control : due) {
+        try {
+          control.action.run();
+        } catch (RuntimeException e) {
+          // a failing sink should not stop the writer
+        }
+      }
+      lock.lock();
+      try {
+        due.forEach(control -> control.done = true);
+        consumed.signalAll();
+      } finally {
+        lock.unlock();
+      }
+      due.clear();
+    }
+  }
+
+  /**
+   * Queues the call after the records accepted so far and waits until the background thread makes it.
+   */
+  private void runInOrder(Runnable action) {
+    lock.lock();
+    try {
+      if (closed) {
+        return;
+      }
+      Control control = new Control(head, action);
+      controls.add(control);
+      notEmpty.signal();
+      while (!control.done && worker.isAlive()) {
+        consumed.await(100, TimeUnit.MILLISECONDS);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Passes the failure on after the records accepted so far, so the delegate sees them in order.
+   */
+  @Override
+  public void failed(String session) {
+    runInOrder(() -> delegate.failed(session));
+  }
+
+  @Override
+  public void testStarted(String session, String testName) {
+    runInOrder(() -> delegate.testStarted(session, testName));
+  }
+
+  /**
+   * Waits until all records accepted so far are passed to the delegate, and flushes it.
+   */
+  @Override
+  public void flush() {
+    runInOrder(delegate::flush);
+  }
+
+  /**
+   * Writes out the buffered records and stops the background thread, records accepted later are ignored.
+   */
+  @Override
+  public void close() {
+    flush();
+    lock.lock();
+    try {
+      closed = true;
+      notEmpty.signalAll();
+      notFull.signalAll();
+    } finally {
+      lock.unlock();
+    }
+    try {
+      worker.join(TimeUnit.SECONDS.toMillis(10));
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    delegate.close();
+  }
+}
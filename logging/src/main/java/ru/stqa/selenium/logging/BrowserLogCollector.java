@@ -0,0 +1,70 @@
+/*
+ * Copyright 2013 Alexei Barantsev
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package ru.stqa.selenium.logging;
+
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.logging.LogEntry;
+import org.openqa.selenium.logging.LogType;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Fetches new browser log entries in batches and passes them on in the order of their timestamps.
+ * Entries already passed on are skipped, as some drivers return them again.
+ */
+final class BrowserLogCollector {
+
+  private final WebDriver driver;
+  private final Consumer<LogEntry> output;
+
+  private long lastTimestamp = Long.MIN_VALUE;
+  private final Set<String> seenAtLastTimestamp = new HashSet<>();
+
+  BrowserLogCollector(WebDriver driver, Consumer<LogEntry> output) {
+    this.driver = driver;
+    this.output = output;
+  }
+
+  synchronized void collect() {
+    List<LogEntry> entries;
+    try {
+      entries = new ArrayList<>(driver.manage().logs().get(LogType.BROWSER).getAll());
+    } catch (RuntimeException e) {
+      // the driver does not support logs, or the session is gone
+      return;
+    }
+    entries.sort(Comparator.comparingLong(LogEntry::getTimestamp));
+    for (LogEntry entry : entries) {
+      if (entry.getTimestamp() < lastTimestamp) {
+        continue;
+      }
+      String key = entry.getLevel() + " " + entry.getMessage();
+      if (entry.getTimestamp() > lastTimestamp) {
+        lastTimestamp = entry.getTimestamp();
+        seenAtLastTimestamp.clear();
+      }
+      if (seenAtLastTimestamp.add(key)) {
+        output.accept(entry);
+      }
+    }
+  }
+}
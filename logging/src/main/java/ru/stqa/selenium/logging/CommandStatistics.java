@@ -0,0 +1,96 @@
+/*
+ * Copyright 2013 Alexei Barantsev
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package ru.stqa.selenium.logging;
+
+import ru.stqa.selenium.decorated.metrics.LatencyHistogram;
+
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Running aggregates of command durations per method, keyed by names like "WebElement.click".
+ * Overloads of a method are counted together.
+ */
+public class CommandStatistics {
+
+  private final ConcurrentHashMap<String, Entry> byName = new ConcurrentHashMap<>();
+  // resolves a method to its entry without building the name on each call
+  private final ConcurrentHashMap<Method, Entry> byMethod = new ConcurrentHashMap<>();
+
+  void record(Method method, long nanos, boolean failed) {
+    Entry entry = byMethod.get(method);
+    if (entry == null) {
+      entry = byMethod.computeIfAbsent(method, key -> byName.computeIfAbsent(nameOf(key), name -> new Entry()));
+    }
+    entry.durations.record(nanos);
+    if (failed) {
+      entry.errors.increment();
+    }
+  }
+
+  private static String nameOf(Method method) {
+    return method.getDeclaringClass().getSimpleName() + "." + method.getName();
+  }
+
+  public Map<String, Snapshot> snapshot() {
+    Map<String, Snapshot> result = new TreeMap<>();
+    byName.forEach((name, entry) -> result.put(name, new Snapshot(entry.errors.sum(), entry.durations.snapshot())));
+    return Collections.unmodifiableMap(result);
+  }
+
+  public void reset() {
+    byMethod.clear();
+    byName.clear();
+  }
+
+  private static class Entry {
+    private final LatencyHistogram durations = new LatencyHistogram();
+    private final LongAdder errors = new LongAdder();
+  }
+
+  public static class Snapshot {
+
+    private final long errors;
+    private final LatencyHistogram.Snapshot durations;
+
+    Snapshot(long errors, LatencyHistogram.Snapshot durations) {
+      this.errors = errors;
+      this.durations = durations;
+    }
+
+    public long getCount() {
+      return durations.getCount();
+    }
+
+    public long getErrors() {
+      return errors;
+    }
+
+    public LatencyHistogram.Snapshot getDurations() {
+      return durations;
+    }
+
+    @Override
+    public String toString() {
+      return String.format("errors=%d, %s", errors, durations);
+    }
+  }
+}
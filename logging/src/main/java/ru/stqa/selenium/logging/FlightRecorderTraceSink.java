@@ -0,0 +1,116 @@
+/*
+ * Copyright 2013 Alexei Barantsev
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package ru.stqa.selenium.logging;
+
+import org.openqa.selenium.NoSuchElementException;
+import org.openqa.selenium.TimeoutException;
+
+import java.util.function.Predicate;
+
+/**
+ * Flight recorder mode: keeps the last records of each session in a circular buffer of preallocated records,
+ * and passes them to the delegate sink only when a command fails or the test using the session is reported
+ * as failed, see {@link LoggingWebDriver#testFailed()}. Nothing is formatted or written for sessions
+ * that pass. Failures expected while polling, {@link NoSuchElementException} and {@link TimeoutException},
+ * do not trigger writing by default, see {@link #setDumpOn(Predicate)}. The buffer of a driver that has quit
+ * is kept until the next test starts or the sink is closed, for at most the last 16 drivers by default,
+ * see {@link #setMaxEndedSessions(int)}. Example of use:
+ * <code>loggingDriver.setTraceSink(new FlightRecorderTraceSink(new Slf4jTraceSink(), 200));</code>
+ * The buffered records keep references to the arguments and results of the commands.
+ */
+public class FlightRecorderTraceSink extends SessionTraceSink<FlightRecorderTraceSink.Ring> {
+
+  private final int capacity;
+  private volatile Predicate<Throwable> dumpOn =
+    error -> !(error instanceof NoSuchElementException || error instanceof TimeoutException);
+
+  static class Ring {
+    private final TraceRecord[] records;
+    private int next = 0;
+    private int size = 0;
+
+    private Ring(int capacity) {
+      records = new TraceRecord[capacity];
+      for (int i = 0; i < capacity; i++) {
+        records[i] = new TraceRecord();
+      }
+    }
+
+    private void add(TraceRecord record) {
+      records[next].copyFrom(record);
+      next = (next + 1) % records.length;
+      if (size < records.length) {
+        size++;
+      }
+    }
+
+    private void reset() {
+      for (TraceRecord record : records) {
+        record.clear();
+      }
+      size = 0;
+    }
+
+    private void dumpTo(TraceSink sink) {
+      int first = (next - size + records.length) % records.length;
+      for (int i = 0; i < size; i++) {
+        TraceRecord record = records[(first + i) % records.length];
+        sink.accept(record);
+        record.clear();
+      }
+      size = 0;
+    }
+  }
+
+  public FlightRecorderTraceSink(TraceSink delegate, int capacity) {
+    super(delegate);
+    if (capacity <= 0) {
+      throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+    }
+    this.capacity = capacity;
+  }
+
+  /**
+   * Sets which exceptions thrown by commands make the buffer written out.
+   */
+  public void setDumpOn(Predicate<Throwable> dumpOn) {
+    this.dumpOn = dumpOn;
+  }
+
+  @Override
+  Ring newState() {
+    return new Ring(capacity);
+  }
+
+  @Override
+  void accept(Ring ring, TraceRecord record) {
+    ring.add(record);
+    if (record.getKind() == TraceRecord.Kind.ERROR && dumpOn.test(record.getError())) {
+      ring.dumpTo(delegate);
+    }
+  }
+
+  @Override
+  void failed(Ring ring) {
+    ring.dumpTo(delegate);
+  }
+
+  @Override
+  void reset(Ring ring) {
+    ring.reset();
+  }
+}
@@ -0,0 +1,235 @@
+/*
+ * Copyright 2013 Alexei Barantsev
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package ru.stqa.selenium.logging;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps polling out of the trace. Consecutive identical commands of a session, with the same method, target,
+ * arguments and result, or the same class and message of the exception thrown, are folded: the first one
+ * is passed to the delegate sink as it is, the repetitions are passed as a single record after the run ends,
+ * see {@link TraceRecord#getRepeats()}.
+ * Commands can also be sampled, only every n-th call of a method is passed on, failures are always passed on.
+ * The sink is thread safe, sessions are folded independently. Example of use:
+ * <code>FoldingTraceSink sink = new FoldingTraceSink(new Slf4jTraceSink());<br>
+ * sink.setSamplingRate("findElements", 10);<br>
+ * loggingDriver.setTraceSink(sink);</code>
+ */
+public class FoldingTraceSink implements TraceSink {
+
+  private final TraceSink delegate;
+  private final ConcurrentHashMap<String, Session> sessions = new ConcurrentHashMap<>();
+  private volatile Map<String, Integer> samplingRates = new HashMap<>();
+  // resolves a method to its sampling rate without building the name on each call
+  private final ConcurrentHashMap<Method, Integer> ratesByMethod = new ConcurrentHashMap<>();
+
+  private static class Session {
+    // the last completed command passed on, AFTER or ERROR
+    private final TraceRecord last = new TraceRecord();
+    private boolean hasLast = false;
+    private final TraceRecord pendingBefore = new TraceRecord();
+    private boolean pending = false;
+    private final TraceRecord folded = new TraceRecord();
+    private int foldedCount = 0;
+    private long foldedFirstTimestamp;
+    private long foldedNanos;
+    private final Map<Method, int[]> calls = new HashMap<>();
+
+    private void fold(TraceRecord completed) {
+      if (foldedCount == 0) {
+        foldedFirstTimestamp = pendingBefore.getTimestamp();
+        foldedNanos = 0;
+      }
+      foldedCount++;
+      foldedNanos = completed.getDurationNanos() < 0 || foldedNanos < 0
+        ? -1 : foldedNanos + completed.getDurationNanos();
+      folded.copyFrom(completed);
+      pending = false;
+      pendingBefore.clear();
+    }
+
+    private void release(TraceSink sink) {
+      if (foldedCount > 0) {
+        sink.accept(folded.withRepeats(foldedCount, foldedFirstTimestamp)
+          .withDuration(foldedNanos < 0 ? -1 : foldedNanos / foldedCount));
+        folded.clear();
+        foldedCount = 0;
+      }
+      if (pending) {
+        sink.accept(pendingBefore);
+        pendingBefore.clear();
+        pending = false;
+      }
+    }
+  }
+
+  public FoldingTraceSink(TraceSink delegate) {
+    this.delegate = delegate;
+  }
+
+  /**
+   * Passes on only every n-th call of the command, named like "WebElement.isDisplayed" after the interface
+   * that declares the method, or like "isDisplayed" to match the method of any interface.
+   * A rate of 1 passes on all calls.
+   */
+  public void setSamplingRate(String command, int rate) {
+    if (rate <= 0) {
+      throw new IllegalArgumentException("Sampling rate must be positive: " + rate);
+    }
+    Map<String, Integer> rates = new HashMap<>(samplingRates);
+    rates.put(command, rate);
+    samplingRates = rates;
+    ratesByMethod.clear();
+  }
+
+  @Override
+  public boolean isEnabled() {
+    return delegate.isEnabled();
+  }
+
+  @Override
+  public boolean isEnabled(TraceRecord.Kind kind) {
+    return delegate.isEnabled(kind);
+  }
+
+  @Override
+  public void accept(TraceRecord record) {
+    String id = keyOf(record.getSession());
+    Session session = sessions.get(id);
+    if (session == null) {
+      session = sessions.computeIfAbsent(id, key -> new Session());
+    }
+    synchronized (session) {
+      if (!isSampled(session, record)) {
+        return;
+      }
+      if (record.getKind() == TraceRecord.Kind.BEFORE
+          && session.hasLast && !session.pending && isSameCall(record, session.last)) {
+        session.pendingBefore.copyFrom(record);
+        session.pending = true;
+        return;
+      }
+      if (session.pending && isSameCall(record, session.last) && isSameOutcome(record, session.last)) {
+        session.fold(record);
+        return;
+      }
+      session.release(delegate);
+      delegate.accept(record);
+      session.hasLast = record.getKind() == TraceRecord.Kind.AFTER || record.getKind() == TraceRecord.Kind.ERROR;
+      if (session.hasLast) {
+        session.last.copyFrom(record);
+      } else {
+        session.last.clear();
+      }
+    }
+    if (record.endsSession()) {
+      sessions.remove(id);
+    }
+  }
+
+  private boolean isSampled(Session session, TraceRecord record) {
+    TraceRecord.Kind kind = record.getKind();
+    if (kind != TraceRecord.Kind.BEFORE && kind != TraceRecord.Kind.AFTER) {
+      return true;
+    }
+    int rate = samplingRateOf(record.getMethod());
+    if (rate == 1) {
+      return true;
+    }
+    int[] calls = session.calls.computeIfAbsent(record.getMethod(), key -> new int[1]);
+    if (kind == TraceRecord.Kind.BEFORE) {
+      calls[0]++;
+    }
+    return (calls[0] - 1) % rate == 0;
+  }
+
+  private int samplingRateOf(Method method) {
+    Integer rate = ratesByMethod.get(method);
+    if (rate == null) {
+      Map<String, Integer> rates = samplingRates;
+      rate = rates.getOrDefault(method.getDeclaringClass().getSimpleName() + "." + method.getName(),
+        rates.getOrDefault(method.getName(), 1));
+      ratesByMethod.put(method, rate);
+    }
+    return rate;
+  }
+
+  private static boolean isSameCall(TraceRecord record, TraceRecord other) {
+    return record.getMethod().equals(other.getMethod())
+      && Objects.equals(record.getTarget(), other.getTarget())
+      && Arrays.deepEquals(record.getArgs(), other.getArgs());
+  }
+
+  private static boolean isSameOutcome(TraceRecord record, TraceRecord other) {
+    if (record.getKind() != other.getKind()) {
+      return false;
+    }
+    switch (record.getKind()) {
+      case AFTER:
+        return Objects.equals(record.getResult(), other.getResult());
+      case ERROR:
+        return record.getError().getClass() == other.getError().getClass()
+          && Objects.equals(record.getError().getMessage(), other.getError().getMessage());
+      default:
+        return false;
+    }
+  }
+
+  private static String keyOf(String session) {
+    return session == null ? "" : session;
+  }
+
+  @Override
+  public void failed(String id) {
+    release(sessions.get(keyOf(id)));
+    delegate.failed(id);
+  }
+
+  @Override
+  public void testStarted(String id, String testName) {
+    release(sessions.get(keyOf(id)));
+    delegate.testStarted(id, testName);
+  }
+
+  /**
+   * Passes on the repetitions folded so far, then flushes the delegate.
+   */
+  @Override
+  public void flush() {
+    sessions.values().forEach(this::release);
+    delegate.flush();
+  }
+
+  private void release(Session session) {
+    if (session != null) {
+      synchronized (session) {
+        session.release(delegate);
+      }
+    }
+  }
+
+  @Override
+  public void close() {
+    flush();
+    delegate.close();
+  }
+}
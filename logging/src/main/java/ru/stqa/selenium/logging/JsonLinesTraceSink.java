@@ -0,0 +1,168 @@
+/*
+ * Copyright 2013 Alexei Barantsev
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package ru.stqa.selenium.logging;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Writes one JSON object per command to rotating files named "prefix-N.jsonl":
+ * <code>{"ts":1580000000000,"session":"1","thread":"main","target":"WebElement","method":"click",
+ * "args":"()","result":"null","durationNanos":1234567,"error":null}</code>
+ * Folded records also have "repeats" and "firstTs" fields, durationNanos is the average then.
+ * Records made before commands are skipped, browser log entries are written with the "Browser" target.
+ * Lines are encoded straight into a reusable direct buffer that is written to the file channel when it fills up.
+ * The sink is thread safe, wrap it into {@link AsyncTraceSink} to keep the I/O off the calling threads.
+ * Files written by parallel processes can be aggregated with {@link TraceReader}.
+ */
+public class JsonLinesTraceSink implements TraceSink {
+
+  private static final int BUFFER_SIZE = 1024 * 1024;
+
+  private final Path directory;
+  private final String prefix;
+  private final long maxFileSize;
+  private final int maxFiles;
+
+  private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+  private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder();
+  private final StringBuilder line = new StringBuilder(1024);
+  private final JsonTraceFormatter formatter;
+
+  private FileChannel channel;
+  private int fileIndex = -1;
+  private long fileSize;
+
+  /**
+   * Writes files prefixed with "trace" and the process id, so that parallel processes can share the directory,
+   * 64 MB per file, at most 10 files.
+   */
+  public JsonLinesTraceSink(Path directory) {
+    this(directory, "trace-" + processId(), 64L * 1024 * 1024, 10, new ValueSummarizer());
+  }
+
+  /**
+   * @param maxFileSize the size in bytes after which the next file is started
+   * @param maxFiles the number of files to keep, older ones are deleted
+   */
+  public JsonLinesTraceSink(Path directory, String prefix, long maxFileSize, int maxFiles, ValueSummarizer summarizer) {
+    this.directory = directory;
+    this.prefix = prefix;
+    this.maxFileSize = maxFileSize;
+    this.maxFiles = maxFiles;
+    this.formatter = new JsonTraceFormatter(summarizer);
+  }
+
+  private static String processId() {
+    String name = ManagementFactory.getRuntimeMXBean().getName();
+    int at = name.indexOf('@');
+    return at > 0 ? name.substring(0, at) : name;
+  }
+
+  Path fileOf(int index) {
+    return directory.resolve(prefix + "-" + index + ".jsonl");
+  }
+
+  @Override
+  public synchronized void accept(TraceRecord record) {
+    if (record.getKind() == TraceRecord.Kind.BEFORE) {
+      return;
+    }
+    line.setLength(0);
+    formatter.appendRecord(line, record);
+    line.append('\n');
+    try {
+      if (channel == null || fileSize >= maxFileSize) {
+        rotate();
+      }
+      write(line);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private void write(CharSequence text) throws IOException {
+    CharBuffer chars = CharBuffer.wrap(text);
+    int start = buffer.position();
+    while (encoder.encode(chars, buffer, true).isOverflow()) {
+      fileSize += buffer.position() - start;
+      drain();
+      start = 0;
+    }
+    encoder.reset();
+    fileSize += buffer.position() - start;
+  }
+
+  private void drain() throws IOException {
+    buffer.flip();
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+    buffer.clear();
+  }
+
+  private void rotate() throws IOException {
+    if (channel != null) {
+      drain();
+      channel.close();
+    }
+    fileIndex++;
+    if (fileIndex >= maxFiles) {
+      Files.deleteIfExists(fileOf(fileIndex - maxFiles));
+    }
+    Files.createDirectories(directory);
+    channel = FileChannel.open(fileOf(fileIndex),
+      StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+    fileSize = 0;
+  }
+
+  @Override
+  public synchronized void flush() {
+    if (channel == null) {
+      return;
+    }
+    try {
+      drain();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  @Override
+  public synchronized void close() {
+    if (channel == null) {
+      return;
+    }
+    try {
+      drain();
+      channel.close();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    } finally {
+      channel = null;
+    }
+  }
+}
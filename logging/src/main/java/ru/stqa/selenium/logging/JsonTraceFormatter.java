@@ -0,0 +1,120 @@
+/*
+ * Copyright 2013 Alexei Barantsev
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package ru.stqa.selenium.logging;
+
+/**
+ * Formats trace records as flat JSON objects, see {@link JsonLinesTraceSink} for the fields.
+ * Not thread safe, each sink keeps its own formatter.
+ */
+final class JsonTraceFormatter {
+
+  private final ValueSummarizer summarizer;
+  private final StringBuilder value = new StringBuilder(256);
+
+  JsonTraceFormatter(ValueSummarizer summarizer) {
+    this.summarizer = summarizer;
+  }
+
+  void appendRecord(StringBuilder line, TraceRecord record) {
+    line.append("{\"ts\":").append(record.getTimestamp());
+    appendField(line, "session", record.getSession());
+    appendField(line, "thread", record.getThread());
+    if (record.getKind() == TraceRecord.Kind.BROWSER) {
+      appendField(line, "target", "Browser");
+      appendField(line, "method", "log");
+      appendField(line, "result", String.valueOf(record.getResult()));
+      line.append('}');
+      return;
+    }
+    appendField(line, "target", record.getMethod().getDeclaringClass().getSimpleName());
+    appendField(line, "method", record.getMethod().getName());
+
+    value.setLength(0);
+    value.append('(');
+    Object[] args = record.getArgs();
+    if (args != null) {
+      for (int i = 0; i < args.length; i++) {
+        if (i > 0) {
+          value.append(", ");
+        }
+        summarizer.appendArgument(value, record.getMethod(), i, args[i]);
+      }
+    }
+    value.append(')');
+    appendField(line, "args", value);
+
+    if (record.getKind() == TraceRecord.Kind.AFTER) {
+      value.setLength(0);
+      summarizer.appendResult(value, record.getMethod(), record.getResult());
+      appendField(line, "result", value);
+    } else {
+      appendField(line, "result", null);
+    }
+    line.append(",\"durationNanos\":").append(record.getDurationNanos());
+    if (record.getRepeats() > 1) {
+      line.append(",\"repeats\":").append(record.getRepeats());
+      line.append(",\"firstTs\":").append(record.getFirstTimestamp());
+    }
+    Throwable error = record.getError();
+    appendField(line, "error", error == null ? null : error.getClass().getName() + ": " + firstLineOf(error.getMessage()));
+    line.append('}');
+  }
+
+  private static String firstLineOf(String message) {
+    if (message == null) {
+      return "";
+    }
+    int end = message.indexOf('\n');
+    return end < 0 ? message : message.substring(0, end);
+  }
+
+  static void appendField(StringBuilder line, String name, CharSequence text) {
+    line.append(",\"").append(name).append("\":");
+    if (text == null) {
+      line.append("null");
+      return;
+    }
+    line.append('"');
+    for (int i = 0; i < text.length(); i++) {
+      char c = text.charAt(i);
+      switch (c) {
+        case '"':
+          line.append("\\\"");
+          break;
+        case '\\':
+          line.append("\\\\");
+          break;
+        case '\n':
+          line.append("\\n");
+          break;
+        case '\r':
+          line.append("\\r");
+          break;
+        case '\t':
+          line.append("\\t");
+          break;
+        default:
+          if (c < 0x20) {
+            line.append(String.format("\\u%04x", (int) c));
+          } else {
+            line.append(c);
+          }
+      }
+    }
+    line.append('"');
+  }
+}
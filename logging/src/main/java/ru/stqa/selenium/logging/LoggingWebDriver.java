@@ -26,50 +26,181 @@ import ru.stqa.selenium.decorated.DecoratedWebDriver;
 
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class LoggingWebDriver extends DecoratedWebDriver {
 
   private static Logger DRIVER_LOG = LoggerFactory.getLogger("WebDriver");
-  private static Logger BROWSER_LOG = LoggerFactory.getLogger("Browser");
 
+  // records are passed to the sink and reused, sinks that keep them make copies
+  private static final ThreadLocal<TraceRecord> RECORD = ThreadLocal.withInitial(TraceRecord::new);
+
+  private static final Set<String> NAVIGATION_METHODS =
+    new HashSet<>(Arrays.asList("get", "to", "back", "forward", "refresh"));
+
+  // start times of the calls in progress, nested calls made by decorators are on top
+  private static final ThreadLocal<CallStack> CALLS = ThreadLocal.withInitial(CallStack::new);
+
+  private static class CallStack {
+    private long[] starts = new long[8];
+    private int depth = 0;
+
+    void push(long start) {
+      if (depth == starts.length) {
+        starts = Arrays.copyOf(starts, depth * 2);
+      }
+      starts[depth++] = start;
+    }
+
+    long pop() {
+      return depth == 0 ? -1 : starts[--depth];
+    }
+  }
+
+  private static final AtomicLong SESSIONS = new AtomicLong();
+
+  private final String sessionId = Long.toString(SESSIONS.incrementAndGet(), 36);
   private boolean dumpBrowserLogs = false;
+  private boolean dumpStatisticsOnQuit = false;
+  private final CommandStatistics statistics = new CommandStatistics();
+  private TraceSink traceSink = new Slf4jTraceSink(DRIVER_LOG);
+  private boolean closeTraceSinkOnQuit = false;
+  // set when the sink throws, tracing stops rather than failing the commands it observes
+  private volatile boolean traceSinkFailed = false;
+  private final BrowserLogCollector browserLogCollector;
+  private int browserLogEvery = 0;
+  private int commandsSinceBrowserLogs = 0;
 
   public LoggingWebDriver(final WebDriver driver) {
     super(driver);
+    browserLogCollector = new BrowserLogCollector(driver, this::traceBrowserEntry);
     DRIVER_LOG.info("Init tracer for {}, driver {}", new BuildInfo(), driver.getClass().getName());
   }
 
+  /**
+   * When enabled, browser logs are fetched after navigation, on errors and before the driver quits,
+   * rather than after each command.
+   */
   public void setDumpBrowserLogs(boolean dumpBrowserLogs) {
     this.dumpBrowserLogs = dumpBrowserLogs;
   }
 
+  /**
+   * Fetches browser logs after every given number of commands, in addition to the events, zero turns it off.
+   * Logs are fetched on the thread that made the command, between commands, as the driver is not thread safe.
+   */
+  public void setBrowserLogEvery(int commands) {
+    this.browserLogEvery = commands;
+    this.commandsSinceBrowserLogs = 0;
+  }
+
+  /**
+   * Fetches the browser log entries written since the last fetch, for example at the end of a test.
+   */
+  public void collectBrowserLogs() {
+    commandsSinceBrowserLogs = 0;
+    if (!traceSinkFailed && traceSink.isEnabled(TraceRecord.Kind.BROWSER)) {
+      browserLogCollector.collect();
+    }
+  }
+
+  /**
+   * Returns the id that marks the records of this driver, unique within the process.
+   */
+  public String getSessionId() {
+    return sessionId;
+  }
+
+  /**
+   * Tells the trace sink that the test using this driver has failed, to be called by a test framework hook
+   * before the driver quits. Sinks that keep records of passing tests back write them out.
+   */
+  public void testFailed() {
+    if (!traceSinkFailed) {
+      try {
+        traceSink.failed(sessionId);
+      } catch (RuntimeException e) {
+        traceSinkFailed(e);
+      }
+    }
+  }
+
+  /**
+   * Tells the trace sink the name of the test that starts using this driver, to be called by a test framework hook.
+   */
+  public void testStarted(String testName) {
+    if (!traceSinkFailed) {
+      try {
+        traceSink.testStarted(sessionId, testName);
+      } catch (RuntimeException e) {
+        traceSinkFailed(e);
+      }
+    }
+  }
+
+  /**
+   * Returns the aggregated durations of commands made through this driver.
+   */
+  public CommandStatistics getStatistics() {
+    return statistics;
+  }
+
+  /**
+   * When enabled, the aggregated durations of commands are written to the log when the driver quits.
+   */
+  public void setDumpStatisticsOnQuit(boolean dumpStatisticsOnQuit) {
+    this.dumpStatisticsOnQuit = dumpStatisticsOnQuit;
+  }
+
+  /**
+   * Sets the sink that receives the records of commands, by default they are written to the "WebDriver" logger.
+   * The sink is flushed when the driver quits. If the sink throws, the failure is logged once and tracing stops.
+   */
+  public void setTraceSink(TraceSink traceSink) {
+    setTraceSink(traceSink, false);
+  }
+
+  /**
+   * Sets the sink that receives the records of commands, if closeOnQuit is true the sink belongs to this driver
+   * and is closed rather than flushed when the driver quits, which stops the thread of an {@link AsyncTraceSink}.
+   * Sinks shared by several drivers should be closed by the code that made them.
+   */
+  public void setTraceSink(TraceSink traceSink, boolean closeOnQuit) {
+    this.traceSink = traceSink;
+    this.closeTraceSinkOnQuit = closeOnQuit;
+    this.traceSinkFailed = false;
+  }
+
   @Override
   public void beforeMethodGlobal(Decorated<?> target, Method method, Object[] args) {
-    StringBuilder message = new StringBuilder();
-    message.append("-> ");
-    appendMethod(message, method, args);
-    message.append(" on ").append(target.getOriginal());
-    DRIVER_LOG.info(message.toString());
+    if (isQuit(target, method) && dumpBrowserLogs) {
+      collectBrowserLogs();
+    }
+    CALLS.get().push(System.nanoTime());
+    if (isTracing()) {
+      trace(TraceRecord.Kind.BEFORE, target, method, args, null, null, -1);
+    }
 
     super.beforeMethodGlobal(target, method, args);
   }
 
   @Override
   public void afterMethodGlobal(Decorated<?> target, Method method, Object res, Object[] args) {
-    StringBuilder message = new StringBuilder();
-    message.append("<- ");
-    appendMethod(message, method, args);
-    message.append(" = ");
-    if (res instanceof String) {
-        message.append("\"").append(res).append("\"");
-    } else {
-      message.append(res);
+    long duration = finishCall(method, false);
+    // entries logged by the browser during navigation go before its completion
+    if (dumpBrowserLogs && NAVIGATION_METHODS.contains(method.getName())) {
+      collectBrowserLogs();
+    } else if (!isQuit(target, method)) {
+      countCommandForBrowserLogs();
     }
-    message.append(" on ").append(target.getOriginal());
-    DRIVER_LOG.info(message.toString());
-
-    if (dumpBrowserLogs) {
-      dumpBrowserLogs(getOriginal());
+    if (isTracing()) {
+      trace(TraceRecord.Kind.AFTER, target, method, args, res, null, duration);
+    }
+    if (isQuit(target, method)) {
+      quitted();
     }
 
     super.afterMethodGlobal(target, method, res, args);
@@ -77,44 +208,92 @@ public class LoggingWebDriver extends DecoratedWebDriver {
 
   @Override
   public Object onErrorGlobal(Decorated<?> target, Method method, InvocationTargetException e, Object[] args) throws Throwable {
-    Throwable te = e.getTargetException();
-    StringBuilder message = new StringBuilder();
-    message.append(">< ");
-    appendMethod(message, method, args);
-    message.append(" on ").append(target.getOriginal());
-    DRIVER_LOG.info(message.toString(), te);
-
-    if (dumpBrowserLogs) {
-      dumpBrowserLogs(getOriginal());
+    long duration = finishCall(method, true);
+    if (dumpBrowserLogs && !isQuit(target, method)) {
+      collectBrowserLogs();
+    } else if (!isQuit(target, method)) {
+      countCommandForBrowserLogs();
+    }
+    if (isTracing()) {
+      trace(TraceRecord.Kind.ERROR, target, method, args, null, e.getTargetException(), duration);
+    }
+    if (isQuit(target, method)) {
+      quitted();
     }
 
     return super.onErrorGlobal(target, method, e, args);
   }
 
-  private void appendMethod(StringBuilder message, Method method, Object[] args) {
-    message.append(method.getName()).append("(");
-    if (args != null && args.length > 0) {
-      for (int i = 0; i < args.length; i++) {
-        if (i > 0) {
-          message.append(", ");
-        }
-        if (args[i] instanceof String) {
-          message.append("\"").append(args[i]).append("\"");
+  private void countCommandForBrowserLogs() {
+    if (browserLogEvery > 0 && ++commandsSinceBrowserLogs >= browserLogEvery) {
+      collectBrowserLogs();
+    }
+  }
+
+  private long finishCall(Method method, boolean failed) {
+    long start = CALLS.get().pop();
+    if (start < 0) {
+      return -1;
+    }
+    long duration = System.nanoTime() - start;
+    statistics.record(method, duration, failed);
+    return duration;
+  }
+
+  private void quitted() {
+    if (!traceSinkFailed) {
+      try {
+        if (closeTraceSinkOnQuit) {
+          traceSink.close();
         } else {
-          message.append(args[i]);
+          traceSink.flush();
         }
+      } catch (RuntimeException e) {
+        traceSinkFailed(e);
       }
     }
-    message.append(")");
+    if (dumpStatisticsOnQuit && DRIVER_LOG.isInfoEnabled()) {
+      statistics.snapshot().forEach((method, snapshot) -> DRIVER_LOG.info("{}: {}", method, snapshot));
+    }
   }
 
-  private void dumpBrowserLogs(WebDriver driver) {
+  private void trace(TraceRecord.Kind kind, Decorated<?> target, Method method, Object[] args, Object result,
+                     Throwable error, long duration) {
+    TraceRecord record = RECORD.get().set(kind, target.getOriginal(), method, args, result, error)
+      .withSession(sessionId).withDuration(duration);
     try {
-      for (LogEntry logEntry : driver.manage().logs().get("browser").getAll()) {
-        BROWSER_LOG.debug("" + logEntry);
-      }
-    } catch (Throwable e) {
+      traceSink.accept(record);
+    } catch (RuntimeException e) {
+      traceSinkFailed(e);
+    } finally {
+      record.clear();
     }
   }
 
+  private boolean isTracing() {
+    return !traceSinkFailed && traceSink.isEnabled();
+  }
+
+  private void traceSinkFailed(RuntimeException e) {
+    if (!traceSinkFailed) {
+      traceSinkFailed = true;
+      DRIVER_LOG.error("Trace sink failed, tracing is stopped", e);
+    }
+  }
+
+  private void traceBrowserEntry(LogEntry entry) {
+    TraceRecord record = RECORD.get().setBrowserEntry(getOriginal(), entry).withSession(sessionId);
+    try {
+      traceSink.accept(record);
+    } catch (RuntimeException e) {
+      traceSinkFailed(e);
+    } finally {
+      record.clear();
+    }
+  }
+
+  private boolean isQuit(Decorated<?> target, Method method) {
+    return target == this && method.getName().equals("quit");
+  }
+
 }
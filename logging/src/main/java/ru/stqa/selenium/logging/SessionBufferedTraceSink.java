@@ -0,0 +1,77 @@
+/*
+ * Copyright 2013 Alexei Barantsev
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package ru.stqa.selenium.logging;
+
+import java.util.ArrayDeque;
+
+/**
+ * Holds the records of each session back until the test using it fails, so passing tests cost almost no log I/O.
+ * When a session fails, its records are written to the delegate sink and later ones pass straight through.
+ * The records of a driver that has quit are kept until the next test starts or the sink is closed,
+ * so a failure reported after the teardown still writes them out, for at most the last 16 drivers by default,
+ * see {@link #setMaxEndedSessions(int)}. At most the given number of records
+ * is kept per session, the oldest ones are dropped first. Example of use:
+ * <code>loggingDriver.setTraceSink(new SessionBufferedTraceSink(new Slf4jTraceSink(), 10000));<br>
+ * ...<br>
+ * loggingDriver.testFailed(); // in a test failure hook</code>
+ */
+public class SessionBufferedTraceSink extends SessionTraceSink<SessionBufferedTraceSink.Buffer> {
+
+  private final int maxRecords;
+
+  static class Buffer {
+    private final ArrayDeque<TraceRecord> records = new ArrayDeque<>();
+    private boolean failed = false;
+  }
+
+  public SessionBufferedTraceSink(TraceSink delegate, int maxRecords) {
+    super(delegate);
+    this.maxRecords = maxRecords;
+  }
+
+  @Override
+  Buffer newState() {
+    return new Buffer();
+  }
+
+  @Override
+  void accept(Buffer buffer, TraceRecord record) {
+    if (buffer.failed) {
+      delegate.accept(record);
+      return;
+    }
+    if (buffer.records.size() == maxRecords) {
+      buffer.records.pollFirst();
+    }
+    buffer.records.addLast(record.copy());
+  }
+
+  @Override
+  void failed(Buffer buffer) {
+    buffer.failed = true;
+    for (TraceRecord record : buffer.records) {
+      delegate.accept(record);
+    }
+    buffer.records.clear();
+  }
+
+  @Override
+  void reset(Buffer buffer) {
+    buffer.records.clear();
+    buffer.failed = false;
+  }
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright 2013 Alexei Barantsev
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package ru.stqa.selenium.logging;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Base of sinks that hold records back per session until the test using the session fails.
+ * The state of a driver that has quit is kept until the next test starts or the sink is closed,
+ * so a failure reported after the teardown, like JUnit 5 test watchers do, still writes the records out.
+ * Without these hooks only the state of the last drivers that have quit is kept,
+ * see {@link #setMaxEndedSessions(int)}.
+ * The state of each session is only touched while holding its lock.
+ */
+abstract class SessionTraceSink<S> implements TraceSink {
+
+  protected final TraceSink delegate;
+  private final ConcurrentHashMap<String, Session<S>> sessions = new ConcurrentHashMap<>();
+  // ids of the sessions of drivers that have quit, the oldest first
+  private final ArrayDeque<String> endedSessions = new ArrayDeque<>();
+  private volatile int maxEndedSessions = 16;
+
+  private static final class Session<S> {
+    private final S state;
+    private boolean ended = false;
+
+    private Session(S state) {
+      this.state = state;
+    }
+  }
+
+  SessionTraceSink(TraceSink delegate) {
+    this.delegate = delegate;
+  }
+
+  /**
+   * Sets how many sessions of drivers that have quit keep their state, 16 by default,
+   * the oldest ones are dropped first.
+   */
+  public void setMaxEndedSessions(int maxEndedSessions) {
+    this.maxEndedSessions = maxEndedSessions;
+    dropEndedSessions(maxEndedSessions);
+  }
+
+  abstract S newState();
+
+  abstract void accept(S state, TraceRecord record);
+
+  /**
+   * Writes out the records held back for the session, its test has failed.
+   */
+  abstract void failed(S state);
+
+  /**
+   * Drops the records held back for the previous test of the session, it has passed.
+   */
+  abstract void reset(S state);
+
+  @Override
+  public boolean isEnabled() {
+    return delegate.isEnabled();
+  }
+
+  @Override
+  public boolean isEnabled(TraceRecord.Kind kind) {
+    return delegate.isEnabled(kind);
+  }
+
+  @Override
+  public void accept(TraceRecord record) {
+    String id = keyOf(record.getSession());
+    Session<S> session = sessions.get(id);
+    if (session == null) {
+      session = sessions.computeIfAbsent(id, key -> new Session<>(newState()));
+    }
+    boolean ends;
+    synchronized (session) {
+      ends = !session.ended && record.endsSession();
+      session.ended |= ends;
+      accept(session.state, record);
+    }
+    if (ends) {
+      synchronized (endedSessions) {
+        endedSessions.addLast(id);
+      }
+      dropEndedSessions(maxEndedSessions);
+    }
+  }
+
+  private static String keyOf(String session) {
+    return session == null ? "" : session;
+  }
+
+  @Override
+  public void failed(String id) {
+    Session<S> session = sessions.get(keyOf(id));
+    if (session != null) {
+      synchronized (session) {
+        failed(session.state);
+      }
+    }
+    delegate.failed(id);
+    delegate.flush();
+  }
+
+  /**
+   * Drops the records of the previous test of the session and the sessions of drivers that have quit,
+   * their tests have passed if they are not reported as failed.
+   */
+  @Override
+  public void testStarted(String id, String testName) {
+    dropEndedSessions(0);
+    Session<S> session = sessions.get(keyOf(id));
+    if (session != null) {
+      synchronized (session) {
+        reset(session.state);
+      }
+    }
+    delegate.testStarted(id, testName);
+  }
+
+  private void dropEndedSessions(int keep) {
+    synchronized (endedSessions) {
+      while (endedSessions.size() > keep) {
+        sessions.remove(endedSessions.pollFirst());
+      }
+    }
+  }
+
+  @Override
+  public void flush() {
+    delegate.flush();
+  }
+
+  @Override
+  public void close() {
+    synchronized (endedSessions) {
+      endedSessions.clear();
+    }
+    sessions.clear();
+    delegate.close();
+  }
+}
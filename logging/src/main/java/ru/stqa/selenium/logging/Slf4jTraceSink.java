@@ -0,0 +1,146 @@
+/*
+ * Copyright 2013 Alexei Barantsev
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package ru.stqa.selenium.logging;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+
+/**
+ * Writes records as text lines to an SLF4J logger at INFO level, the "WebDriver" logger by default.
+ * Browser log entries are written to the "Browser" logger at DEBUG level. Lines end with the session id
+ * in brackets, so that lines of parallel sessions can be told apart with any layout. The sink is thread safe.
+ */
+public class Slf4jTraceSink implements TraceSink {
+
+  // builders are reused by the thread, but one that has grown on a huge message is dropped
+  private static final int MAX_KEPT_BUILDER_CAPACITY = 64 * 1024;
+  private static final ThreadLocal<StringBuilder> BUILDER = ThreadLocal.withInitial(() -> new StringBuilder(256));
+
+  private static final Logger BROWSER_LOG = LoggerFactory.getLogger("Browser");
+
+  private final Logger log;
+  private final ValueSummarizer summarizer;
+  private volatile String mdcKey;
+  private volatile boolean sessionInLine = true;
+
+  public Slf4jTraceSink() {
+    this(LoggerFactory.getLogger("WebDriver"));
+  }
+
+  public Slf4jTraceSink(Logger log) {
+    this(log, new ValueSummarizer());
+  }
+
+  public Slf4jTraceSink(Logger log, ValueSummarizer summarizer) {
+    this.log = log;
+    this.summarizer = summarizer;
+  }
+
+  /**
+   * Returns the summarizer that limits the size of arguments and results in log lines, it can be configured.
+   */
+  public ValueSummarizer getSummarizer() {
+    return summarizer;
+  }
+
+  /**
+   * Puts the session id of a record into the MDC under the given key while the record is logged,
+   * so that the log layout can place or filter by it. Null, the default, turns it off.
+   */
+  public void setMdcKey(String mdcKey) {
+    this.mdcKey = mdcKey;
+  }
+
+  /**
+   * Tells if lines end with the session id, on by default, it can be turned off when the layout shows the MDC.
+   */
+  public void setSessionInLine(boolean sessionInLine) {
+    this.sessionInLine = sessionInLine;
+  }
+
+  @Override
+  public boolean isEnabled() {
+    return log.isInfoEnabled();
+  }
+
+  @Override
+  public boolean isEnabled(TraceRecord.Kind kind) {
+    return kind == TraceRecord.Kind.BROWSER ? BROWSER_LOG.isDebugEnabled() : log.isInfoEnabled();
+  }
+
+  @Override
+  public void accept(TraceRecord record) {
+    String key = mdcKey;
+    String session = record.getSession();
+    if (key == null || session == null) {
+      write(record);
+      return;
+    }
+    String previous = MDC.get(key);
+    if (session.equals(previous)) {
+      write(record);
+      return;
+    }
+    MDC.put(key, session);
+    try {
+      write(record);
+    } finally {
+      if (previous == null) {
+        MDC.remove(key);
+      } else {
+        MDC.put(key, previous);
+      }
+    }
+  }
+
+  private void write(TraceRecord record) {
+    if (record.getKind() == TraceRecord.Kind.BROWSER) {
+      if (BROWSER_LOG.isDebugEnabled()) {
+        BROWSER_LOG.debug(appendSession(new StringBuilder().append(record.getResult()), record).toString());
+      }
+      return;
+    }
+    if (!log.isInfoEnabled()) {
+      return;
+    }
+    StringBuilder message = BUILDER.get();
+    message.setLength(0);
+    TraceFormatter.appendRecord(message, record, summarizer);
+    // records written by another thread are attributed to the thread that made the call
+    if (!record.getThread().equals(Thread.currentThread().getName())) {
+      message.append(" in ").append(record.getThread());
+    }
+    appendSession(message, record);
+    String text = message.toString();
+    if (message.capacity() > MAX_KEPT_BUILDER_CAPACITY) {
+      BUILDER.remove();
+    }
+    if (record.getError() != null) {
+      log.info(text, record.getError());
+    } else {
+      log.info(text);
+    }
+  }
+
+  private StringBuilder appendSession(StringBuilder message, TraceRecord record) {
+    if (sessionInLine && record.getSession() != null) {
+      message.append(" [").append(record.getSession()).append(']');
+    }
+    return message;
+  }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2013 Alexei Barantsev
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package ru.stqa.selenium.logging;
+
+/**
+ * Formats trace records as log lines: "-> " before a command, "<- " after it with the result,
+ * "&gt;&lt; " when it fails. Browser log entries are written as they are.
+ */
+final class TraceFormatter {
+
+  private TraceFormatter() {}
+
+  static void appendRecord(StringBuilder message, TraceRecord record, ValueSummarizer summarizer) {
+    switch (record.getKind()) {
+      case BROWSER:
+        message.append(record.getResult());
+        return;
+      case BEFORE:
+        message.append("-> ");
+        appendMethod(message, record, summarizer);
+        break;
+      case AFTER:
+        message.append("<- ");
+        appendMethod(message, record, summarizer);
+        message.append(" = ");
+        summarizer.appendResult(message, record.getMethod(), record.getResult());
+        break;
+      default:
+        message.append(">< ");
+        appendMethod(message, record, summarizer);
+    }
+    message.append(" on ").append(record.getTarget());
+    if (record.getDurationNanos() >= 0) {
+      appendDuration(message.append(" ("), record.getDurationNanos()).append(")");
+    }
+    if (record.getRepeats() > 1) {
+      message.append(" repeated ").append(record.getRepeats()).append(" times in ")
+        .append(record.getTimestamp() - record.getFirstTimestamp()).append(" ms");
+    }
+  }
+
+  /**
+   * Appends the duration in milliseconds with microsecond precision.
+   */
+  static StringBuilder appendDuration(StringBuilder message, long nanos) {
+    long micros = nanos / 1000;
+    long fraction = micros % 1000;
+    message.append(micros / 1000).append('.');
+    if (fraction < 100) {
+      message.append('0');
+    }
+    if (fraction < 10) {
+      message.append('0');
+    }
+    return message.append(fraction).append(" ms");
+  }
+
+  static void appendMethod(StringBuilder message, TraceRecord record, ValueSummarizer summarizer) {
+    message.append(record.getMethod().getName()).append("(");
+    Object[] args = record.getArgs();
+    if (args != null && args.length > 0) {
+      for (int i = 0; i < args.length; i++) {
+        if (i > 0) {
+          message.append(", ");
+        }
+        summarizer.appendArgument(message, record.getMethod(), i, args[i]);
+      }
+    }
+    message.append(")");
+  }
+}
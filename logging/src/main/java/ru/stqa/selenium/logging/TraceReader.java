@@ -0,0 +1,169 @@
+/*
+ * Copyright 2013 Alexei Barantsev
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package ru.stqa.selenium.logging;
+
+import ru.stqa.selenium.decorated.metrics.LatencyHistogram;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Aggregates JSON-lines traces written by {@link JsonLinesTraceSink}, for example by parallel test shards,
+ * into per-method statistics. Run from the command line with files or directories as arguments:
+ * <code>java ru.stqa.selenium.logging.TraceReader build/traces</code>
+ */
+public class TraceReader {
+
+  private TraceReader() {}
+
+  public static Map<String, CommandStatistics.Snapshot> aggregate(Collection<Path> paths) throws IOException {
+    Map<String, LatencyHistogram> durations = new HashMap<>();
+    Map<String, long[]> errors = new HashMap<>();
+    for (Path file : traceFiles(paths)) {
+      try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+        String line;
+        while ((line = reader.readLine()) != null) {
+          Map<String, String> record = parse(line);
+          String duration = record.get("durationNanos");
+          if (duration == null) {
+            continue;
+          }
+          String method = record.get("target") + "." + record.get("method");
+          LatencyHistogram histogram = durations.computeIfAbsent(method, key -> new LatencyHistogram());
+          long nanos = Long.parseLong(duration);
+          String repeats = record.get("repeats");
+          boolean error = record.get("error") != null;
+          long[] count = errors.computeIfAbsent(method, key -> new long[1]);
+          for (int i = repeats == null ? 1 : Integer.parseInt(repeats); i > 0; i--) {
+            histogram.record(nanos);
+            if (error) {
+              count[0]++;
+            }
+          }
+        }
+      }
+    }
+    Map<String, CommandStatistics.Snapshot> result = new TreeMap<>();
+    durations.forEach((method, histogram) ->
+      result.put(method, new CommandStatistics.Snapshot(errors.get(method)[0], histogram.snapshot())));
+    return Collections.unmodifiableMap(result);
+  }
+
+  private static List<Path> traceFiles(Collection<Path> paths) throws IOException {
+    List<Path> files = new ArrayList<>();
+    for (Path path : paths) {
+      if (Files.isDirectory(path)) {
+        try (Stream<Path> children = Files.list(path)) {
+          files.addAll(children.filter(child -> child.getFileName().toString().endsWith(".jsonl"))
+            .sorted().collect(Collectors.toList()));
+        }
+      } else {
+        files.add(path);
+      }
+    }
+    return files;
+  }
+
+  /**
+   * Parses a flat JSON object with string, number and null values, as written by the sink.
+   * Null values are left out of the result.
+   */
+  static Map<String, String> parse(String line) {
+    Map<String, String> fields = new HashMap<>();
+    int i = line.indexOf('{') + 1;
+    while (i > 0 && i < line.length()) {
+      int nameStart = line.indexOf('"', i);
+      if (nameStart < 0) {
+        break;
+      }
+      int nameEnd = line.indexOf('"', nameStart + 1);
+      String name = line.substring(nameStart + 1, nameEnd);
+      i = line.indexOf(':', nameEnd) + 1;
+      if (line.charAt(i) == '"') {
+        StringBuilder value = new StringBuilder();
+        i = readString(line, i + 1, value);
+        fields.put(name, value.toString());
+      } else {
+        int end = i;
+        while (end < line.length() && line.charAt(end) != ',' && line.charAt(end) != '}') {
+          end++;
+        }
+        String value = line.substring(i, end).trim();
+        if (!value.equals("null")) {
+          fields.put(name, value);
+        }
+        i = end;
+      }
+      i = line.indexOf(',', i) + 1;
+    }
+    return fields;
+  }
+
+  private static int readString(String line, int i, StringBuilder value) {
+    while (i < line.length()) {
+      char c = line.charAt(i++);
+      if (c == '"') {
+        return i;
+      }
+      if (c != '\\') {
+        value.append(c);
+        continue;
+      }
+      char escaped = line.charAt(i++);
+      switch (escaped) {
+        case 'n':
+          value.append('\n');
+          break;
+        case 'r':
+          value.append('\r');
+          break;
+        case 't':
+          value.append('\t');
+          break;
+        case 'u':
+          value.append((char) Integer.parseInt(line.substring(i, i + 4), 16));
+          i += 4;
+          break;
+        default:
+          value.append(escaped);
+      }
+    }
+    return i;
+  }
+
+  public static void main(String[] args) throws IOException {
+    if (args.length == 0) {
+      System.err.println("Usage: TraceReader <trace file or directory>...");
+      System.exit(1);
+    }
+    List<Path> paths = Stream.of(args).map(Paths::get).collect(Collectors.toList());
+    aggregate(paths).forEach((method, snapshot) -> System.out.println(method + ": " + snapshot));
+  }
+}
@@ -0,0 +1,229 @@
+/*
+ * Copyright 2013 Alexei Barantsev
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package ru.stqa.selenium.logging;
+
+import org.openqa.selenium.logging.LogEntry;
+
+import java.lang.reflect.Method;
+
+/**
+ * Raw fields of a traced command: nothing is formatted when the record is captured, arguments and results
+ * are kept by reference. Records passed to a {@link TraceSink} may be reused after it returns,
+ * a sink that keeps them should keep a {@link #copy()}.
+ */
+public final class TraceRecord {
+
+  public enum Kind { BEFORE, AFTER, ERROR, BROWSER }
+
+  private Kind kind;
+  private long timestamp;
+  private long nanoTime;
+  private String thread;
+  private Object target;
+  private Method method;
+  private Object[] args;
+  private Object result;
+  private Throwable error;
+  private long durationNanos = -1;
+  private String session;
+  private int repeats = 1;
+  private long firstTimestamp = -1;
+
+  TraceRecord() {
+  }
+
+  TraceRecord set(Kind kind, Object target, Method method, Object[] args, Object result, Throwable error) {
+    this.kind = kind;
+    this.timestamp = System.currentTimeMillis();
+    this.nanoTime = System.nanoTime();
+    this.thread = Thread.currentThread().getName();
+    this.target = target;
+    this.method = method;
+    this.args = args;
+    this.result = result;
+    this.error = error;
+    this.durationNanos = -1;
+    this.session = null;
+    this.repeats = 1;
+    this.firstTimestamp = -1;
+    return this;
+  }
+
+  TraceRecord withSession(String session) {
+    this.session = session;
+    return this;
+  }
+
+  TraceRecord withDuration(long durationNanos) {
+    this.durationNanos = durationNanos;
+    return this;
+  }
+
+  /**
+   * Makes the record stand for a number of identical consecutive commands, the first one made at the given time.
+   */
+  TraceRecord withRepeats(int repeats, long firstTimestamp) {
+    this.repeats = repeats;
+    this.firstTimestamp = firstTimestamp;
+    return this;
+  }
+
+  /**
+   * Fills the record with a browser log entry, the result, stamped with the time of the entry.
+   */
+  TraceRecord setBrowserEntry(Object target, LogEntry entry) {
+    set(Kind.BROWSER, target, null, null, entry, null);
+    this.timestamp = entry.getTimestamp();
+    return this;
+  }
+
+  void copyFrom(TraceRecord other) {
+    this.kind = other.kind;
+    this.timestamp = other.timestamp;
+    this.nanoTime = other.nanoTime;
+    this.thread = other.thread;
+    this.target = other.target;
+    this.method = other.method;
+    this.args = other.args;
+    this.result = other.result;
+    this.error = other.error;
+    this.durationNanos = other.durationNanos;
+    this.session = other.session;
+    this.repeats = other.repeats;
+    this.firstTimestamp = other.firstTimestamp;
+  }
+
+  /**
+   * Copies the record with the target, arguments and result replaced by their summaries,
+   * so the copy does not keep the traced objects from being collected.
+   */
+  void copySummarized(TraceRecord other, ValueSummarizer summarizer) {
+    copyFrom(other);
+    if (method == null) {
+      return;
+    }
+    target = new ValueSummarizer.Summary(String.valueOf(other.target));
+    if (other.args != null) {
+      args = new Object[other.args.length];
+      for (int i = 0; i < args.length; i++) {
+        args[i] = summarizer.summarizeArgument(method, i, other.args[i]);
+      }
+    }
+    if (kind == Kind.AFTER) {
+      result = summarizer.summarizeResult(method, other.result);
+    }
+  }
+
+  /**
+   * Drops references to the traced objects, so a reusable record does not keep them from being collected.
+   */
+  void clear() {
+    this.target = null;
+    this.args = null;
+    this.result = null;
+    this.error = null;
+  }
+
+  /**
+   * Tells if the record is made after the driver quits, so sinks can drop the state kept for the session.
+   */
+  boolean endsSession() {
+    return (kind == Kind.AFTER || kind == Kind.ERROR)
+      && method.getName().equals("quit") && method.getParameterCount() == 0;
+  }
+
+  public TraceRecord copy() {
+    TraceRecord copy = new TraceRecord();
+    copy.copyFrom(this);
+    return copy;
+  }
+
+  public Kind getKind() {
+    return kind;
+  }
+
+  /**
+   * Wall clock time of the record in milliseconds.
+   */
+  public long getTimestamp() {
+    return timestamp;
+  }
+
+  /**
+   * Monotonic time of the record, only meaningful in comparison with other records.
+   */
+  public long getNanoTime() {
+    return nanoTime;
+  }
+
+  public String getThread() {
+    return thread;
+  }
+
+  /**
+   * Returns the id of the logging driver that made the record.
+   */
+  public String getSession() {
+    return session;
+  }
+
+  public Object getTarget() {
+    return target;
+  }
+
+  /**
+   * Returns the traced method, null for browser log entries.
+   */
+  public Method getMethod() {
+    return method;
+  }
+
+  public Object[] getArgs() {
+    return args;
+  }
+
+  public Object getResult() {
+    return result;
+  }
+
+  public Throwable getError() {
+    return error;
+  }
+
+  /**
+   * Returns the number of identical consecutive commands the record stands for, more than one
+   * for records folded by {@link FoldingTraceSink}.
+   */
+  public int getRepeats() {
+    return repeats;
+  }
+
+  /**
+   * Wall clock time of the first of the folded commands, the same as {@link #getTimestamp()} for other records.
+   */
+  public long getFirstTimestamp() {
+    return firstTimestamp < 0 ? timestamp : firstTimestamp;
+  }
+
+  /**
+   * Returns the duration of the command for records made after it, -1 otherwise.
+   * For folded records it is the average duration of the commands.
+   */
+  public long getDurationNanos() {
+    return durationNanos;
+  }
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2013 Alexei Barantsev
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package ru.stqa.selenium.logging;
+
+/**
+ * Receives the records of commands traced by {@link LoggingWebDriver}. Sinks are called from all threads that use
+ * the driver, and from the thread that collects browser logs on a schedule, so implementations must be thread safe.
+ * A sink that is not can be wrapped into {@link AsyncTraceSink}, that calls it from a single background thread.
+ */
+public interface TraceSink {
+
+  /**
+   * Tells the driver whether records should be captured at all, checked before each command.
+   */
+  default boolean isEnabled() {
+    return true;
+  }
+
+  /**
+   * Tells the driver whether records of the given kind should be captured, browser log entries are fetched
+   * from the browser only if they are wanted.
+   */
+  default boolean isEnabled(TraceRecord.Kind kind) {
+    return isEnabled();
+  }
+
+  /**
+   * Handles a record, the record may be reused after the method returns.
+   */
+  void accept(TraceRecord record);
+
+  /**
+   * Tells the sink that the test using the session has failed, called by {@link LoggingWebDriver#testFailed()}.
+   * Sinks that hold records back should write out the records of the session.
+   */
+  default void failed(String session) {
+  }
+
+  /**
+   * Tells the sink that a test starts using the session, called by {@link LoggingWebDriver#testStarted(String)}.
+   * Records of the session made after the call belong to the test.
+   */
+  default void testStarted(String session, String testName) {
+  }
+
+  /**
+   * Waits until all accepted records are written, called when the driver quits.
+   */
+  default void flush() {
+  }
+
+  default void close() {
+    flush();
+  }
+}
@@ -0,0 +1,246 @@
+/*
+ * Copyright 2013 Alexei Barantsev
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package ru.stqa.selenium.logging;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * Writes arguments and results of commands to log lines in a bounded size: long strings are truncated
+ * and marked with their length and hash, byte arrays and base64 screenshots are replaced with their sizes,
+ * collections and arrays show the first elements and the count, long scripts are replaced with a fingerprint.
+ * Only the parts that are written are read, the payload is never copied.
+ */
+public class ValueSummarizer {
+
+  private static final int MAX_DEPTH = 3;
+
+  private int maxStringLength = 2000;
+  private int maxElements = 10;
+  private int maxScriptLength = 200;
+  private final Map<Class<?>, BiConsumer<StringBuilder, Object>> custom = new LinkedHashMap<>();
+
+  /**
+   * A value summarized in advance, written to log lines as it is.
+   */
+  static final class Summary {
+    private final String text;
+
+    Summary(String text) {
+      this.text = text;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      return other instanceof Summary && text.equals(((Summary) other).text);
+    }
+
+    @Override
+    public int hashCode() {
+      return text.hashCode();
+    }
+
+    @Override
+    public String toString() {
+      return text;
+    }
+  }
+
+  /**
+   * Strings longer than this are truncated, 2000 characters by default.
+   */
+  public void setMaxStringLength(int maxStringLength) {
+    this.maxStringLength = maxStringLength;
+  }
+
+  /**
+   * Collections, arrays and maps show at most this number of elements, 10 by default.
+   */
+  public void setMaxElements(int maxElements) {
+    this.maxElements = maxElements;
+  }
+
+  /**
+   * Scripts longer than this are replaced with a fingerprint, 200 characters by default.
+   */
+  public void setMaxScriptLength(int maxScriptLength) {
+    this.maxScriptLength = maxScriptLength;
+  }
+
+  /**
+   * Sets a custom summary for values of the given type, it takes precedence over the built-in ones.
+   */
+  @SuppressWarnings("unchecked")
+  public synchronized <T> void summarize(Class<T> type, BiConsumer<StringBuilder, ? super T> summary) {
+    custom.put(type, (BiConsumer<StringBuilder, Object>) summary);
+  }
+
+  void appendArgument(StringBuilder message, Method method, int index, Object value) {
+    if (index == 0 && value instanceof String && isScript(method)) {
+      appendScript(message, (String) value);
+    } else {
+      appendValue(message, value, 0);
+    }
+  }
+
+  void appendResult(StringBuilder message, Method method, Object value) {
+    if (value instanceof String && method.getName().equals("getScreenshotAs")) {
+      appendBase64(message, (String) value);
+    } else {
+      appendValue(message, value, 0);
+    }
+  }
+
+  void appendValue(StringBuilder message, Object value) {
+    appendValue(message, value, 0);
+  }
+
+  Summary summarizeArgument(Method method, int index, Object value) {
+    StringBuilder summary = new StringBuilder();
+    appendArgument(summary, method, index, value);
+    return new Summary(summary.toString());
+  }
+
+  Summary summarizeResult(Method method, Object value) {
+    StringBuilder summary = new StringBuilder();
+    appendResult(summary, method, value);
+    return new Summary(summary.toString());
+  }
+
+  private void appendValue(StringBuilder message, Object value, int depth) {
+    if (value == null) {
+      message.append("null");
+    } else if (value instanceof Summary) {
+      message.append(((Summary) value).text);
+    } else if (!custom.isEmpty() && appendCustom(message, value)) {
+      return;
+    } else if (value instanceof String) {
+      appendString(message, (String) value);
+    } else if (value instanceof byte[]) {
+      message.append("byte[").append(((byte[]) value).length).append("]");
+    } else if (depth >= MAX_DEPTH && (value instanceof Collection || value instanceof Map || value.getClass().isArray())) {
+      message.append("...");
+    } else if (value instanceof Collection) {
+      appendElements(message, ((Collection<?>) value).iterator(), ((Collection<?>) value).size(), depth);
+    } else if (value.getClass().isArray()) {
+      appendArray(message, value, depth);
+    } else if (value instanceof Map) {
+      appendMap(message, (Map<?, ?>) value, depth);
+    } else {
+      message.append(value);
+    }
+  }
+
+  private synchronized boolean appendCustom(StringBuilder message, Object value) {
+    for (Map.Entry<Class<?>, BiConsumer<StringBuilder, Object>> entry : custom.entrySet()) {
+      if (entry.getKey().isInstance(value)) {
+        entry.getValue().accept(message, value);
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private void appendString(StringBuilder message, String value) {
+    message.append("\"");
+    if (value.length() <= maxStringLength) {
+      message.append(value).append("\"");
+    } else {
+      message.append(value, 0, maxStringLength).append("...\"");
+      appendSize(message, value);
+    }
+  }
+
+  private void appendScript(StringBuilder message, String script) {
+    if (script.length() <= maxScriptLength) {
+      appendString(message, script);
+    } else {
+      message.append("script");
+      appendSize(message, script);
+    }
+  }
+
+  private void appendBase64(StringBuilder message, String base64) {
+    int length = base64.length();
+    int padding = length > 0 && base64.charAt(length - 1) == '=' ? (length > 1 && base64.charAt(length - 2) == '=' ? 2 : 1) : 0;
+    message.append("base64(").append(length / 4 * 3 - padding).append(" bytes)");
+  }
+
+  private static void appendSize(StringBuilder message, String value) {
+    message.append("(length=").append(value.length())
+      .append(", hash=").append(Integer.toHexString(value.hashCode())).append(")");
+  }
+
+  private void appendElements(StringBuilder message, Iterator<?> elements, int size, int depth) {
+    message.append("[");
+    int written = 0;
+    while (elements.hasNext() && written < maxElements) {
+      if (written > 0) {
+        message.append(", ");
+      }
+      appendValue(message, elements.next(), depth + 1);
+      written++;
+    }
+    closeElements(message, "]", written, size);
+  }
+
+  private void appendArray(StringBuilder message, Object array, int depth) {
+    int size = Array.getLength(array);
+    message.append("[");
+    int written = Math.min(size, maxElements);
+    for (int i = 0; i < written; i++) {
+      if (i > 0) {
+        message.append(", ");
+      }
+      appendValue(message, Array.get(array, i), depth + 1);
+    }
+    closeElements(message, "]", written, size);
+  }
+
+  private void appendMap(StringBuilder message, Map<?, ?> map, int depth) {
+    message.append("{");
+    int written = 0;
+    for (Map.Entry<?, ?> entry : map.entrySet()) {
+      if (written == maxElements) {
+        break;
+      }
+      if (written > 0) {
+        message.append(", ");
+      }
+      message.append(entry.getKey()).append("=");
+      appendValue(message, entry.getValue(), depth + 1);
+      written++;
+    }
+    closeElements(message, "}", written, map.size());
+  }
+
+  private static void closeElements(StringBuilder message, String bracket, int written, int size) {
+    if (written < size) {
+      message.append(", ... ").append(size).append(" elements");
+    }
+    message.append(bracket);
+  }
+
+  private static boolean isScript(Method method) {
+    return method.getName().equals("executeScript") || method.getName().equals("executeAsyncScript");
+  }
+}
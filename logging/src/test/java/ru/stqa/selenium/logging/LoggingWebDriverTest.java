@@ -18,21 +18,51 @@ package ru.stqa.selenium.logging;
 
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.NoSuchElementException;
+import org.openqa.selenium.SearchContext;
 import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.logging.LogEntries;
+import org.openqa.selenium.logging.LogEntry;
+import org.openqa.selenium.logging.Logs;
 import com.github.valfirst.slf4jtest.LoggingEvent;
 import com.github.valfirst.slf4jtest.TestLogger;
 import com.github.valfirst.slf4jtest.TestLoggerFactory;
 
+import uk.org.lidalia.slf4jext.Level;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
 
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.CoreMatchers.startsWith;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.matchesPattern;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.*;
 
 class LoggingWebDriverTest {
 
   private TestLogger logger = TestLoggerFactory.getTestLogger("WebDriver");
+  private TestLogger browserLogger = TestLoggerFactory.getTestLogger("Browser");
 
   @Test
   void logsWrapperInitialization() {
@@ -62,6 +92,579 @@ class LoggingWebDriverTest {
     assertThat(log.get(2).getMessage(), startsWith("<- get(\"http://localhost/\") = null"));
   }
 
+  @Test
+  void doesNotFormatMessagesIfLoggingIsDisabled() {
+    final WebDriver mockedDriver = mock(WebDriver.class);
+    final AtomicInteger formatted = new AtomicInteger();
+    final By locator = new By() {
+      @Override
+      public List<WebElement> findElements(SearchContext context) {
+        return context.findElements(this);
+      }
+
+      @Override
+      public String toString() {
+        formatted.incrementAndGet();
+        return "By.counting";
+      }
+    };
+
+    when(mockedDriver.findElement(locator)).thenReturn(mock(WebElement.class));
+
+    final WebDriver driver = new LoggingWebDriver(mockedDriver).getActivated();
+    logger.setEnabledLevels(Level.WARN, Level.ERROR);
+    try {
+      driver.findElement(locator);
+    } finally {
+      logger.setEnabledLevels(Level.enablableValueSet());
+    }
+
+    verify(mockedDriver, times(1)).findElement(locator);
+    assertThat(formatted.get(), is(0));
+    assertThat(logger.getLoggingEvents().size(), is(1));
+  }
+
+  @Test
+  void writesTraceOnABackgroundThreadAndFlushesItOnQuit() {
+    final WebDriver mockedDriver = mock(WebDriver.class);
+    final List<String> written = new CopyOnWriteArrayList<>();
+    final Set<String> writerThreads = ConcurrentHashMap.newKeySet();
+
+    LoggingWebDriver loggingDriver = new LoggingWebDriver(mockedDriver);
+    loggingDriver.setTraceSink(new AsyncTraceSink(record -> {
+      writerThreads.add(Thread.currentThread().getName());
+      written.add(record.getKind() + " " + record.getMethod().getName() + " " + record.getThread());
+    }, 4));
+    final WebDriver driver = loggingDriver.getActivated();
+
+    for (int i = 0; i < 5; i++) {
+      driver.get("http://localhost/");
+    }
+    driver.quit();
+
+    String caller = Thread.currentThread().getName();
+    assertThat(written.size(), is(12));
+    assertThat(written.get(0), is("BEFORE get " + caller));
+    assertThat(written.get(11), is("AFTER quit " + caller));
+    assertThat(writerThreads.contains(caller), is(false));
+    assertThat(logger.getLoggingEvents().size(), is(1));
+  }
+
+  @Test
+  void keepsOnlySummariesInTheAsyncBufferAndClosesAnOwnedSinkOnQuit() {
+    final WebDriver mockedDriver = mock(WebDriver.class);
+    final String pageSource = String.join("", Collections.nCopies(5000, "<p/>"));
+    when(mockedDriver.getPageSource()).thenReturn(pageSource);
+    final List<Object> results = new CopyOnWriteArrayList<>();
+
+    LoggingWebDriver loggingDriver = new LoggingWebDriver(mockedDriver);
+    Slf4jTraceSink slf4jSink = new Slf4jTraceSink(logger);
+    AsyncTraceSink sink = new AsyncTraceSink(record -> {
+      if (record.getKind() == TraceRecord.Kind.AFTER) {
+        results.add(record.getResult());
+      }
+      slf4jSink.accept(record);
+    }, 4);
+    loggingDriver.setTraceSink(sink, true);
+    final WebDriver driver = loggingDriver.getActivated();
+
+    assertThat(driver.getPageSource(), is(pageSource));
+    driver.quit();
+
+    assertThat(sink.isEnabled(), is(false));
+    assertThat(results.get(0) instanceof String, is(false));
+    assertThat(results.get(0).toString().length() < 2100, is(true));
+    assertThat(logger.getAllLoggingEvents().stream()
+      .anyMatch(event -> event.getMessage().startsWith("<- getPageSource() = \"<p/><p/>")), is(true));
+  }
+
+  @Test
+  void passesFailuresAndFlushesOnTheWriterThreadAfterEarlierRecords() {
+    final WebDriver mockedDriver = mock(WebDriver.class);
+    final List<String> calls = new CopyOnWriteArrayList<>();
+    final String caller = Thread.currentThread().getName();
+
+    LoggingWebDriver loggingDriver = new LoggingWebDriver(mockedDriver);
+    loggingDriver.setTraceSink(new AsyncTraceSink(new TraceSink() {
+      @Override
+      public void accept(TraceRecord record) {
+        calls.add(record.getKind() + " " + record.getMethod().getName() + " " + caller.equals(Thread.currentThread().getName()));
+      }
+
+      @Override
+      public void failed(String session) {
+        calls.add("failed " + caller.equals(Thread.currentThread().getName()));
+      }
+
+      @Override
+      public void flush() {
+        calls.add("flush " + caller.equals(Thread.currentThread().getName()));
+      }
+    }, 4));
+    final WebDriver driver = loggingDriver.getActivated();
+
+    driver.get("http://localhost/");
+    loggingDriver.testFailed();
+    driver.quit();
+
+    assertThat(calls, is(Arrays.asList("BEFORE get false", "AFTER get false", "failed false",
+        "BEFORE quit false", "AFTER quit false", "flush false")));
+  }
+
+  @Test
+  void stopsTracingIfTheSinkFails() {
+    final WebDriver mockedDriver = mock(WebDriver.class);
+    when(mockedDriver.getTitle()).thenReturn("Title");
+    final AtomicInteger accepted = new AtomicInteger();
+
+    LoggingWebDriver loggingDriver = new LoggingWebDriver(mockedDriver);
+    loggingDriver.setTraceSink(record -> {
+      if (accepted.incrementAndGet() == 2) {
+        throw new UncheckedIOException(new IOException("No space left on device"));
+      }
+    });
+    final WebDriver driver = loggingDriver.getActivated();
+
+    assertThat(driver.getTitle(), is("Title"));
+    assertThat(driver.getTitle(), is("Title"));
+
+    assertThat(accepted.get(), is(2));
+    assertThat(loggingDriver.getStatistics().snapshot().get("WebDriver.getTitle").getCount(), is(2L));
+    List<LoggingEvent> log = logger.getLoggingEvents();
+    assertThat(log.size(), is(2));
+    assertThat(log.get(1).getLevel(), is(Level.ERROR));
+  }
+
+  @Test
+  void summarizesLargeArgumentsAndResults() {
+    final WebDriver mockedDriver = mock(WebDriver.class, withSettings().extraInterfaces(JavascriptExecutor.class));
+    final String page = String.join("", Collections.nCopies(1000, "<p>text</p>"));
+    final String script = String.join("", Collections.nCopies(100, "var x = 1;"));
+    when(mockedDriver.getPageSource()).thenReturn(page);
+    when(((JavascriptExecutor) mockedDriver).executeScript(script, 1, 2))
+        .thenReturn(Arrays.asList(1L, 2L, 3L, 4L, 5L));
+
+    ValueSummarizer summarizer = new ValueSummarizer();
+    summarizer.setMaxStringLength(10);
+    summarizer.setMaxElements(2);
+    LoggingWebDriver loggingDriver = new LoggingWebDriver(mockedDriver);
+    loggingDriver.setTraceSink(new Slf4jTraceSink(logger, summarizer));
+    final WebDriver driver = loggingDriver.getActivated();
+
+    driver.getPageSource();
+    ((JavascriptExecutor) driver).executeScript(script, 1, 2);
+
+    List<LoggingEvent> log = logger.getLoggingEvents();
+    assertThat(log.get(2).getMessage(), startsWith(String.format(
+        "<- getPageSource() = \"<p>text</p...\"(length=11000, hash=%s)", Integer.toHexString(page.hashCode()))));
+    assertThat(log.get(4).getMessage(), startsWith(String.format(
+        "<- executeScript(script(length=1000, hash=%s), [1, 2]) = [1, 2, ... 5 elements]",
+        Integer.toHexString(script.hashCode()))));
+  }
+
+  @Test
+  void collectsBrowserLogsOnNavigationWithoutDuplicates() {
+    final WebDriver mockedDriver = mock(WebDriver.class);
+    final WebDriver.Options mockedOptions = mock(WebDriver.Options.class);
+    final Logs mockedLogs = mock(Logs.class);
+    when(mockedDriver.manage()).thenReturn(mockedOptions);
+    when(mockedOptions.logs()).thenReturn(mockedLogs);
+    LogEntry first = new LogEntry(java.util.logging.Level.INFO, 1000, "first");
+    LogEntry second = new LogEntry(java.util.logging.Level.WARNING, 1001, "second");
+    LogEntry third = new LogEntry(java.util.logging.Level.SEVERE, 1002, "third");
+    when(mockedLogs.get("browser"))
+        .thenReturn(new LogEntries(Arrays.asList(second, first)))
+        .thenReturn(new LogEntries(Arrays.asList(second, third)));
+
+    LoggingWebDriver loggingDriver = new LoggingWebDriver(mockedDriver);
+    loggingDriver.setDumpBrowserLogs(true);
+    final WebDriver driver = loggingDriver.getActivated();
+
+    driver.get("http://localhost/");
+    driver.getTitle();
+    driver.get("http://localhost/next");
+
+    verify(mockedLogs, times(2)).get("browser");
+    List<LoggingEvent> browserLog = browserLogger.getLoggingEvents();
+    assertThat(browserLog.size(), is(3));
+    String session = " [" + loggingDriver.getSessionId() + "]";
+    assertThat(browserLog.get(0).getMessage(), is(first + session));
+    assertThat(browserLog.get(1).getMessage(), is(second + session));
+    assertThat(browserLog.get(2).getMessage(), is(third + session));
+  }
+
+  @Test
+  void collectsBrowserLogsEveryGivenNumberOfCommandsOnTheCallingThread() {
+    final WebDriver mockedDriver = mock(WebDriver.class);
+    final WebDriver.Options mockedOptions = mock(WebDriver.Options.class);
+    final Logs mockedLogs = mock(Logs.class);
+    when(mockedDriver.manage()).thenReturn(mockedOptions);
+    when(mockedOptions.logs()).thenReturn(mockedLogs);
+    final Thread testThread = Thread.currentThread();
+    when(mockedLogs.get("browser")).thenAnswer(invocation -> {
+      assertThat(Thread.currentThread(), is(testThread));
+      return new LogEntries(Collections.emptyList());
+    });
+
+    LoggingWebDriver loggingDriver = new LoggingWebDriver(mockedDriver);
+    loggingDriver.setBrowserLogEvery(2);
+    final WebDriver driver = loggingDriver.getActivated();
+
+    driver.getTitle();
+    verify(mockedLogs, never()).get("browser");
+    driver.getTitle();
+    verify(mockedLogs, times(1)).get("browser");
+    driver.getTitle();
+    driver.getCurrentUrl();
+    verify(mockedLogs, times(2)).get("browser");
+
+    loggingDriver.setBrowserLogEvery(0);
+    driver.getTitle();
+    driver.getTitle();
+    verify(mockedLogs, times(2)).get("browser");
+  }
+
+  @Test
+  void measuresCommandDurations() {
+    final WebDriver mockedDriver = mock(WebDriver.class);
+    doThrow(new WebDriverException("Unreachable")).when(mockedDriver).get("http://unreachable/");
+
+    LoggingWebDriver loggingDriver = new LoggingWebDriver(mockedDriver);
+    loggingDriver.setDumpStatisticsOnQuit(true);
+    final WebDriver driver = loggingDriver.getActivated();
+
+    driver.get("http://localhost/");
+    assertThrows(WebDriverException.class, () -> driver.get("http://unreachable/"));
+    driver.quit();
+
+    List<LoggingEvent> log = logger.getLoggingEvents();
+    assertThat(log.get(2).getMessage(), matchesPattern("<- get\\(\"http://localhost/\"\\) = null on .* \\(\\d+\\.\\d{3} ms\\) \\["
+        + loggingDriver.getSessionId() + "\\]"));
+    assertThat(log.get(4).getMessage(), matchesPattern(">< get\\(\"http://unreachable/\"\\) on .* \\(\\d+\\.\\d{3} ms\\) \\["
+        + loggingDriver.getSessionId() + "\\]"));
+
+    CommandStatistics.Snapshot get = loggingDriver.getStatistics().snapshot().get("WebDriver.get");
+    assertThat(get.getCount(), is(2L));
+    assertThat(get.getErrors(), is(1L));
+    assertThat(log.get(log.size() - 1).getArguments().get(0), is("WebDriver.quit"));
+  }
+
+  @Test
+  void writesJsonLinesTraceWithRotation(@TempDir Path directory) throws IOException {
+    final WebDriver mockedDriver = mock(WebDriver.class);
+    when(mockedDriver.getTitle()).thenReturn("Title with \"quotes\"");
+    doThrow(new WebDriverException("Unreachable")).when(mockedDriver).get("http://unreachable/");
+
+    LoggingWebDriver loggingDriver = new LoggingWebDriver(mockedDriver);
+    JsonLinesTraceSink sink = new JsonLinesTraceSink(directory, "shard", 500, 10, new ValueSummarizer());
+    loggingDriver.setTraceSink(sink);
+    final WebDriver driver = loggingDriver.getActivated();
+
+    for (int i = 0; i < 5; i++) {
+      driver.get("http://localhost/");
+    }
+    driver.getTitle();
+    assertThrows(WebDriverException.class, () -> driver.get("http://unreachable/"));
+    driver.quit();
+    sink.close();
+
+    assertThat(Files.exists(directory.resolve("shard-1.jsonl")), is(true));
+    Map<String, String> first = TraceReader.parse(Files.readAllLines(directory.resolve("shard-0.jsonl")).get(0));
+    assertThat(first.get("session"), is(loggingDriver.getSessionId()));
+    assertThat(first.get("target"), is("WebDriver"));
+    assertThat(first.get("method"), is("get"));
+    assertThat(first.get("args"), is("(\"http://localhost/\")"));
+
+    Map<String, CommandStatistics.Snapshot> statistics = TraceReader.aggregate(Collections.singletonList(directory));
+    assertThat(statistics.get("WebDriver.get").getCount(), is(6L));
+    assertThat(statistics.get("WebDriver.get").getErrors(), is(1L));
+    assertThat(statistics.get("WebDriver.getTitle").getCount(), is(1L));
+    assertThat(statistics.get("WebDriver.quit").getCount(), is(1L));
+  }
+
+  @Test
+  void countsFoldedFailuresWhenAggregatingTraces(@TempDir Path directory) throws IOException {
+    final WebDriver mockedDriver = mock(WebDriver.class);
+    when(mockedDriver.findElement(By.id("item"))).thenThrow(new NoSuchElementException("item"));
+
+    LoggingWebDriver loggingDriver = new LoggingWebDriver(mockedDriver);
+    JsonLinesTraceSink sink = new JsonLinesTraceSink(directory, "shard", 100000, 10, new ValueSummarizer());
+    loggingDriver.setTraceSink(new FoldingTraceSink(sink));
+    final WebDriver driver = loggingDriver.getActivated();
+
+    for (int i = 0; i < 4; i++) {
+      assertThrows(NoSuchElementException.class, () -> driver.findElement(By.id("item")));
+    }
+    driver.quit();
+    sink.close();
+
+    assertThat(Files.readAllLines(directory.resolve("shard-0.jsonl")).stream()
+      .filter(line -> line.contains("\"repeats\":3")).count(), is(1L));
+    // the proxy may report the method as declared by SearchContext
+    CommandStatistics.Snapshot findElement = TraceReader.aggregate(Collections.singletonList(directory)).entrySet()
+      .stream().filter(entry -> entry.getKey().endsWith(".findElement")).findFirst().get().getValue();
+    assertThat(findElement.getCount(), is(4L));
+    assertThat(findElement.getErrors(), is(4L));
+  }
+
+  @Test
+  void endsLinesWithTheSessionUnlessTurnedOff() {
+    final WebDriver mockedDriver = mock(WebDriver.class);
+
+    Slf4jTraceSink slf4jSink = new Slf4jTraceSink(logger);
+    LoggingWebDriver loggingDriver = new LoggingWebDriver(mockedDriver);
+    loggingDriver.setTraceSink(slf4jSink);
+    final WebDriver driver = loggingDriver.getActivated();
+
+    driver.getTitle();
+    slf4jSink.setSessionInLine(false);
+    driver.getTitle();
+
+    List<LoggingEvent> log = logger.getLoggingEvents();
+    assertThat(log.size(), is(5));
+    assertThat(log.get(1).getMessage(), is("-> getTitle() on " + mockedDriver + " [" + loggingDriver.getSessionId() + "]"));
+    assertThat(log.get(3).getMessage(), is("-> getTitle() on " + mockedDriver));
+  }
+
+  @Test
+  void writesTraceOfFailedSessionsOnlyWithSessionInMdc() {
+    final WebDriver passingDriver = mock(WebDriver.class);
+    final WebDriver failingDriver = mock(WebDriver.class);
+
+    Slf4jTraceSink slf4jSink = new Slf4jTraceSink(logger);
+    slf4jSink.setMdcKey("session");
+    SessionBufferedTraceSink sink = new SessionBufferedTraceSink(slf4jSink, 100);
+    LoggingWebDriver passing = new LoggingWebDriver(passingDriver);
+    passing.setTraceSink(sink);
+    LoggingWebDriver failing = new LoggingWebDriver(failingDriver);
+    failing.setTraceSink(sink);
+    final WebDriver driver1 = passing.getActivated();
+    final WebDriver driver2 = failing.getActivated();
+
+    driver1.get("http://localhost/passing");
+    driver2.get("http://localhost/failing");
+    driver1.quit();
+    assertThat(logger.getLoggingEvents().size(), is(2));
+
+    failing.testFailed();
+    driver2.getTitle();
+    driver2.quit();
+
+    List<LoggingEvent> log = logger.getLoggingEvents();
+    assertThat(log.size(), is(8));
+    assertThat(log.get(2).getMessage(), startsWith("-> get(\"http://localhost/failing\")"));
+    assertThat(log.get(4).getMessage(), startsWith("-> getTitle()"));
+    assertThat(log.get(7).getMessage(), startsWith("<- quit()"));
+    for (LoggingEvent event : log.subList(2, 8)) {
+      assertThat(event.getMdc().get("session"), is(failing.getSessionId()));
+    }
+  }
+
+  @Test
+  void writesBufferedTraceIfTheFailureIsReportedAfterQuit() {
+    SessionBufferedTraceSink sink = new SessionBufferedTraceSink(new Slf4jTraceSink(logger), 100);
+    LoggingWebDriver first = new LoggingWebDriver(mock(WebDriver.class));
+    first.setTraceSink(sink);
+    LoggingWebDriver second = new LoggingWebDriver(mock(WebDriver.class));
+    second.setTraceSink(sink);
+
+    first.testStarted("first");
+    first.getActivated().get("http://localhost/first");
+    first.getActivated().quit();
+    first.testFailed();
+    assertThat(logger.getLoggingEvents().size(), is(6));
+
+    second.testStarted("second");
+    second.getActivated().quit();
+    first.testFailed();
+    second.testFailed();
+    assertThat(logger.getLoggingEvents().size(), is(8));
+  }
+
+  @Test
+  void keepsOnlyTheLastSessionsOfDriversThatHaveQuit() {
+    SessionBufferedTraceSink sink = new SessionBufferedTraceSink(new Slf4jTraceSink(logger), 100);
+    sink.setMaxEndedSessions(1);
+    LoggingWebDriver first = new LoggingWebDriver(mock(WebDriver.class));
+    first.setTraceSink(sink);
+    LoggingWebDriver second = new LoggingWebDriver(mock(WebDriver.class));
+    second.setTraceSink(sink);
+
+    first.getActivated().quit();
+    second.getActivated().quit();
+    first.testFailed();
+    assertThat(logger.getLoggingEvents().size(), is(2));
+
+    second.testFailed();
+    assertThat(logger.getLoggingEvents().size(), is(4));
+  }
+
+  @Test
+  void writesLastRecordsOnlyWhenACommandOrTheTestFails() {
+    final WebDriver mockedDriver = mock(WebDriver.class);
+    doThrow(new WebDriverException("Unreachable")).when(mockedDriver).get("http://unreachable/");
+
+    LoggingWebDriver loggingDriver = new LoggingWebDriver(mockedDriver);
+    loggingDriver.setTraceSink(new FlightRecorderTraceSink(new Slf4jTraceSink(logger), 3));
+    final WebDriver driver = loggingDriver.getActivated();
+
+    for (int i = 0; i < 4; i++) {
+      driver.get("http://localhost/" + i);
+    }
+    assertThat(logger.getLoggingEvents().size(), is(1));
+    assertThrows(WebDriverException.class, () -> driver.get("http://unreachable/"));
+
+    List<LoggingEvent> log = logger.getLoggingEvents();
+    assertThat(log.size(), is(4));
+    assertThat(log.get(1).getMessage(), startsWith("<- get(\"http://localhost/3\")"));
+    assertThat(log.get(2).getMessage(), startsWith("-> get(\"http://unreachable/\")"));
+    assertThat(log.get(3).getMessage(), startsWith(">< get(\"http://unreachable/\")"));
+
+    driver.getTitle();
+    loggingDriver.testFailed();
+    driver.quit();
+
+    log = logger.getLoggingEvents();
+    assertThat(log.size(), is(6));
+    assertThat(log.get(4).getMessage(), startsWith("-> getTitle()"));
+    assertThat(log.get(5).getMessage(), startsWith("<- getTitle()"));
+  }
+
+  @Test
+  void ignoresPollingFailuresAndKeepsLastRecordsAfterQuit() {
+    final WebDriver mockedDriver = mock(WebDriver.class);
+    when(mockedDriver.findElement(By.id("missing"))).thenThrow(new NoSuchElementException("missing"));
+
+    LoggingWebDriver loggingDriver = new LoggingWebDriver(mockedDriver);
+    loggingDriver.setTraceSink(new FlightRecorderTraceSink(new Slf4jTraceSink(logger), 4));
+    final WebDriver driver = loggingDriver.getActivated();
+
+    assertThrows(NoSuchElementException.class, () -> driver.findElement(By.id("missing")));
+    driver.quit();
+    assertThat(logger.getLoggingEvents().size(), is(1));
+
+    loggingDriver.testFailed();
+    List<LoggingEvent> log = logger.getLoggingEvents();
+    assertThat(log.size(), is(5));
+    assertThat(log.get(2).getMessage(), startsWith(">< findElement(By.id: missing)"));
+    assertThat(log.get(4).getMessage(), startsWith("<- quit()"));
+
+    loggingDriver.testStarted("next");
+    loggingDriver.testFailed();
+    assertThat(logger.getLoggingEvents().size(), is(5));
+  }
+
+  @Test
+  void foldsRepeatedCommandsAndSamplesPolling() {
+    final WebDriver mockedDriver = mock(WebDriver.class);
+    when(mockedDriver.getTitle()).thenReturn("Title", "Title", "Title", "Title", "Title", "Other");
+
+    FoldingTraceSink sink = new FoldingTraceSink(new Slf4jTraceSink(logger));
+    sink.setSamplingRate("findElements", 3);
+    LoggingWebDriver loggingDriver = new LoggingWebDriver(mockedDriver);
+    loggingDriver.setTraceSink(sink);
+    final WebDriver driver = loggingDriver.getActivated();
+
+    for (int i = 0; i < 6; i++) {
+      driver.getTitle();
+    }
+    for (int i = 0; i < 6; i++) {
+      driver.findElements(By.id("item" + i));
+    }
+    driver.quit();
+
+    List<LoggingEvent> log = logger.getLoggingEvents();
+    assertThat(log.size(), is(12));
+    assertThat(log.get(2).getMessage(), startsWith("<- getTitle() = \"Title\""));
+    assertThat(log.get(3).getMessage(), matchesPattern("<- getTitle\\(\\) = \"Title\" on .* repeated 4 times in \\d+ ms \\["
+        + loggingDriver.getSessionId() + "\\]"));
+    assertThat(log.get(4).getMessage(), startsWith("-> getTitle()"));
+    assertThat(log.get(5).getMessage(), startsWith("<- getTitle() = \"Other\""));
+    assertThat(log.get(6).getMessage(), startsWith("-> findElements(By.id: item0)"));
+    assertThat(log.get(8).getMessage(), startsWith("-> findElements(By.id: item3)"));
+    assertThat(log.get(11).getMessage(), startsWith("<- quit()"));
+  }
+
+  @Test
+  void foldsRepeatedFailures() {
+    final WebDriver mockedDriver = mock(WebDriver.class);
+    when(mockedDriver.findElement(By.id("item")))
+      .thenThrow(new NoSuchElementException("item")).thenThrow(new NoSuchElementException("item"))
+      .thenThrow(new NoSuchElementException("item")).thenReturn(mock(WebElement.class));
+
+    LoggingWebDriver loggingDriver = new LoggingWebDriver(mockedDriver);
+    loggingDriver.setTraceSink(new FoldingTraceSink(new Slf4jTraceSink(logger)));
+    final WebDriver driver = loggingDriver.getActivated();
+
+    for (int i = 0; i < 3; i++) {
+      assertThrows(NoSuchElementException.class, () -> driver.findElement(By.id("item")));
+    }
+    driver.findElement(By.id("item"));
+
+    List<LoggingEvent> log = logger.getLoggingEvents();
+    assertThat(log.size(), is(6));
+    assertThat(log.get(2).getMessage(), startsWith(">< findElement(By.id: item)"));
+    assertThat(log.get(3).getMessage(), matchesPattern(">< findElement\\(By.id: item\\) on .* repeated 2 times in \\d+ ms \\["
+        + loggingDriver.getSessionId() + "\\]"));
+    assertThat(log.get(4).getMessage(), startsWith("-> findElement(By.id: item)"));
+    assertThat(log.get(5).getMessage(), startsWith("<- findElement(By.id: item)"));
+  }
+
+  @Test
+  void archivesTraceInIndexedCompressedBlocks(@TempDir Path directory) throws IOException {
+    final WebDriver mockedDriver = mock(WebDriver.class);
+    when(mockedDriver.getTitle()).thenReturn("Title");
+    doThrow(new WebDriverException("Unreachable")).when(mockedDriver).get("http://unreachable/");
+
+    Path archive = directory.resolve("trace.jsonl.gz");
+    ArchiveTraceSink sink = new ArchiveTraceSink(archive, 200, new ValueSummarizer());
+    LoggingWebDriver loggingDriver = new LoggingWebDriver(mockedDriver);
+    loggingDriver.setTraceSink(sink);
+    final WebDriver driver = loggingDriver.getActivated();
+
+    loggingDriver.testStarted("passing");
+    for (int i = 0; i < 3; i++) {
+      driver.get("http://localhost/" + i);
+    }
+    loggingDriver.testStarted("failing");
+    driver.getTitle();
+    assertThrows(WebDriverException.class, () -> driver.get("http://unreachable/"));
+    loggingDriver.testFailed();
+    driver.quit();
+    sink.close();
+
+    List<ArchiveReader.Block> blocks = ArchiveReader.index(archive);
+    assertThat(blocks.size() > 2, is(true));
+    int errors = 0;
+    for (ArchiveReader.Block block : blocks) {
+      assertThat(block.getSession(), is(loggingDriver.getSessionId()));
+      if (block.isFailed()) {
+        assertThat(block.getTest(), is("failing"));
+      }
+      if (block.isError()) {
+        errors++;
+      }
+      if (block.getRecords() == 0) {
+        assertThat(block.getFirstTimestamp(), is(0L));
+        assertThat(block.getLastTimestamp(), is(0L));
+      }
+    }
+    assertThat(errors, is(1));
+    assertThat(blocks.stream().filter(block -> block.getRecords() == 0).count(), is(1L));
+    assertThat(ArchiveReader.failedTests(archive), is(Collections.singleton("failing")));
+
+    List<String> records = ArchiveReader.readTest(archive, "failing");
+    assertThat(records.size(), is(3));
+    assertThat(TraceReader.parse(records.get(0)).get("method"), is("getTitle"));
+    assertThat(TraceReader.parse(records.get(1)).get("error"), startsWith("org.openqa.selenium.WebDriverException"));
+    assertThat(TraceReader.parse(records.get(2)).get("method"), is("quit"));
+
+    try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+        new GZIPInputStream(Files.newInputStream(archive)), StandardCharsets.UTF_8))) {
+      assertThat(reader.lines().count(), is(6L));
+    }
+  }
+
   @AfterEach
   void clearLogger() {
     TestLoggerFactory.clear();